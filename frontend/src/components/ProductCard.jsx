@@ -80,6 +80,13 @@ function ProductCard({ product, onAddToCartSuccess, isAddedToCart, isAdmin, isLo
     ? `http://localhost:8080${product.imagePath}`
     : "https://via.placeholder.com/400?text=No+Image";
 
+  // Scaled-down variants, once the server has generated them
+  const imageSrcSet = product.imageVariants
+    ? Object.entries(product.imageVariants)
+        .map(([width, path]) => `http://localhost:8080${path} ${width}w`)
+        .join(", ")
+    : undefined;
+
   return (
     <div
       className="h-100"
@@ -135,6 +142,9 @@ function ProductCard({ product, onAddToCartSuccess, isAddedToCart, isAdmin, isLo
       >
         <img
           src={imageUrl}
+          srcSet={imageSrcSet}
+          sizes="(max-width: 576px) 100vw, (max-width: 992px) 50vw, 25vw"
+          loading="lazy"
           alt={product.name}
           style={{
             width: "100%",
@@ -19,6 +19,8 @@ import { toast } from "react-toastify";
 import { productService } from "../services/productService";
 import api from "../services/api";
 
+const RESERVATIONS_PAGE_SIZE = 20;
+
 function Admin({ isAdmin, isLoggedIn }) {
   const [pets, setPets] = useState([]);
   const [showAddModal, setShowAddModal] = useState(false);
@@ -31,6 +33,9 @@ function Admin({ isAdmin, isLoggedIn }) {
   const [reservations, setReservations] = useState([]);
   const [resLoading, setResLoading] = useState(false);
   const [resError, setResError] = useState(null);
+  const [resPage, setResPage] = useState(0);
+  const [resTotalPages, setResTotalPages] = useState(0);
+  const [resStatusCounts, setResStatusCounts] = useState({});
   const [contacts, setContacts] = useState([]);
   const [contactLoading, setContactLoading] = useState(false);
   const [contactError, setContactError] = useState(null);
@@ -154,22 +159,17 @@ function Admin({ isAdmin, isLoggedIn }) {
     }
   };
 
-  const fetchReservations = async () => {
+  const fetchReservations = async (page = resPage) => {
     setResLoading(true);
     try {
-      const response = await api.get("/admin/reservations");
-      console.log("Fetched reservations:", response.data);
-      // Sort reservations: PENDING first, then by date (newest first)
-      const sortedReservations = response.data.sort((a, b) => {
-        // First sort by status (PENDING first)
-        if (a.status === "PENDING" && b.status !== "PENDING") return -1;
-        if (a.status !== "PENDING" && b.status === "PENDING") return 1;
-
-        // Then sort by date (newest first)
-        return new Date(b.reservationDate) - new Date(a.reservationDate);
+      // The server pages and sorts: PENDING first, then by date (newest first)
+      const response = await api.get("/admin/reservations", {
+        params: { page, size: RESERVATIONS_PAGE_SIZE },
       });
-
-      setReservations(sortedReservations || []);
+      setReservations(response.data.items || []);
+      setResPage(response.data.currentPage);
+      setResTotalPages(response.data.totalPages);
+      setResStatusCounts(response.data.statusCounts || {});
       setResError(null);
     } catch (err) {
       console.error("Error fetching reservations:", err);
@@ -338,7 +338,7 @@ function Admin({ isAdmin, isLoggedIn }) {
             { icon: "🏠", value: stats.adopted, label: "Adopted" },
             {
               icon: "📋",
-              value: reservations.filter((r) => r.status === "PENDING").length,
+              value: resStatusCounts.PENDING || 0,
               label: "Pending Reservations",
             },
           ].map((stat, idx) => (
@@ -718,6 +718,29 @@ function Admin({ isAdmin, isLoggedIn }) {
                           ))}
                         </tbody>
                       </Table>
+                      {resTotalPages > 1 && (
+                        <div className="d-flex justify-content-between align-items-center p-2">
+                          <Button
+                            variant="outline-secondary"
+                            size="sm"
+                            disabled={resPage === 0 || resLoading}
+                            onClick={() => fetchReservations(resPage - 1)}
+                          >
+                            Previous
+                          </Button>
+                          <span>
+                            Page {resPage + 1} of {resTotalPages}
+                          </span>
+                          <Button
+                            variant="outline-secondary"
+                            size="sm"
+                            disabled={resPage + 1 >= resTotalPages || resLoading}
+                            onClick={() => fetchReservations(resPage + 1)}
+                          >
+                            Next
+                          </Button>
+                        </div>
+                      )}
                     </div>
                   ) : resLoading ? (
                     <div className="text-center py-5">
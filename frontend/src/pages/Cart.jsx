@@ -58,10 +58,9 @@ function Cart({ onAddToCartSuccess }) {
       return;
     }
     try {
-      const updatedCart = await cartService.updateCartItem(
-        productCode,
-        quantity
-      );
+      const updatedCart = await cartService.batchUpdate([
+        { op: "update", code: productCode, quantity },
+      ]);
       setCart(updatedCart);
       if (onAddToCartSuccess) {
         onAddToCartSuccess(updatedCart);
@@ -331,7 +330,7 @@ function Cart({ onAddToCartSuccess }) {
                       <Image
                         src={
                           item.productInfo.imagePath
-                            ? `http://localhost:8080${item.productInfo.imagePath}`
+                            ? `http://localhost:8080${item.productInfo.thumbnailPath ?? item.productInfo.imagePath}`
                             : "https://via.placeholder.com/100?text=No+Image"
                         }
                         style={{
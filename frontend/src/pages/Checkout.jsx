@@ -282,7 +282,7 @@ function Checkout({ onAddToCartSuccess }) {
                   <img
                     src={
                       item.productInfo.imagePath
-                        ? `http://localhost:8080${item.productInfo.imagePath}`
+                        ? `http://localhost:8080${item.productInfo.thumbnailPath ?? item.productInfo.imagePath}`
                         : "https://via.placeholder.com/60?text=No+Image"
                     }
                     alt={item.productInfo.name}
@@ -61,6 +61,29 @@ const cartService = {
     }
   },
 
+  // Apply [{ op: "add" | "update" | "remove" | "clear", code, quantity }] in one request;
+  // either all operations are applied or none is.
+  async batchUpdate(operations) {
+    try {
+      const response = await api.post("/cart/batch", operations);
+      return response.data;
+    } catch (error) {
+      if (error.response?.status === 401) {
+        throw new Error("Please sign in to update cart");
+      }
+      console.error("Error updating cart:", error);
+      throw error;
+    }
+  },
+
+  // Replace the whole cart with the given [{ code, quantity }] lines.
+  async syncCart(lines) {
+    return this.batchUpdate([
+      { op: "clear" },
+      ...lines.map((line) => ({ op: "add", code: line.code, quantity: line.quantity })),
+    ]);
+  },
+
   async clearCart() {
     try {
       const response = await api.delete("/cart");
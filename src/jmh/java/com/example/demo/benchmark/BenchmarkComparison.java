@@ -0,0 +1,81 @@
+package com.example.demo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, e.g. the results of the last release with a new run:
+ *
+ * mvn -Pjmh test-compile exec:java -Dexec.mainClass=com.example.demo.benchmark.BenchmarkComparison
+ *     -Dexec.args="benchmarks/1.0.0.json target/jmh-result.json"
+ *
+ * Prints every benchmark and parameter combination found in both with its scores and the
+ * change. Changes within the combined error of the two scores are marked as noise.
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> result : current.entrySet()) {
+            JsonNode before = baseline.get(result.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode oldMetric = before.path("primaryMetric");
+            JsonNode newMetric = result.getValue().path("primaryMetric");
+            double oldScore = oldMetric.path("score").asDouble();
+            double newScore = newMetric.path("score").asDouble();
+            double error = error(oldMetric) + error(newMetric);
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100;
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%% %s%s%n", result.getKey(), oldScore, newScore, change,
+                    newMetric.path("scoreUnit").asText(), Math.abs(newScore - oldScore) <= error ? " (noise)" : "");
+        }
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode result) {
+        // Class and method, without the package
+        String benchmark = result.path("benchmark").asText();
+        int method = benchmark.lastIndexOf('.');
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1));
+        Map<String, String> params = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> param = fields.next();
+            params.put(param.getKey(), param.getValue().asText());
+        }
+        if (!params.isEmpty()) {
+            key.append(' ').append(params);
+        }
+        return key.toString();
+    }
+
+    private static double error(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.fixtures.CatalogFixtures;
+import com.example.demo.fixtures.EmbeddedApplication;
+import com.example.demo.model.CartInfo;
+import com.example.demo.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CartService.addProductToCart, behind POST /api/cart/add, against H2: the product lookup,
+ * the update under the cart's lock and, for signed-in users, queuing the snapshot for the
+ * write-behind. Each thread has its own session and cycles through {@code cartLines} pets, so
+ * carts stay at a realistic size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    @Param({"1000"})
+    int catalogSize;
+
+    @Param({"10"})
+    int cartLines;
+
+    @Param({"anonymous", "signedIn"})
+    String user;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private String[] codes;
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Shopper {
+
+        MockHttpServletRequest request;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(CartServiceBenchmark benchmark) {
+            int id = benchmark.sessions.incrementAndGet();
+            MockHttpSession session = new MockHttpSession(null, "benchmark-" + id);
+            if ("signedIn".equals(benchmark.user)) {
+                session.setAttribute("userId", "shopper" + id + "@example.com");
+            }
+            request = new MockHttpServletRequest();
+            request.setSession(session);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedApplication.start();
+        CatalogFixtures.insert(context.getBean(JdbcTemplate.class), CatalogFixtures.products(catalogSize, 5));
+        cartService = context.getBean(CartService.class);
+        codes = new String[cartLines];
+        for (int i = 0; i < cartLines; i++) {
+            codes[i] = String.format("P%07d", i * (catalogSize / cartLines));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CartInfo addProductToCart(Shopper shopper) {
+        return cartService.addProductToCart(codes[shopper.next++ % cartLines], 1, shopper.request);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Product;
+import com.example.demo.fixtures.CatalogFixtures;
+import com.example.demo.model.CartInfo;
+import com.example.demo.model.ProductInfo;
+import com.example.demo.service.CartSnapshotCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent cart encoding: the legacy JSON of the whole CartInfo (embedded ProductInfo per
+ * line) against the binary CartSnapshotCodec. The encode benchmarks also report the stored
+ * size of the cart in both formats, as the {@code jsonBytes} and {@code binaryBytes} counters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartSnapshotBenchmark {
+
+    @Param({"1", "5", "20"})
+    int lines;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private CartInfo cart;
+    private String json;
+    private byte[] binary;
+    private int jsonBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        List<Product> products = CatalogFixtures.products(lines, 7);
+        cart = new CartInfo();
+        for (int i = 0; i < products.size(); i++) {
+            cart.addProduct(new ProductInfo(products.get(i)), 1 + i % 3);
+        }
+        json = objectMapper.writeValueAsString(cart);
+        binary = CartSnapshotCodec.encode(cart);
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public String jsonEncode(EncodedSize size) throws JsonProcessingException {
+        size.record(this);
+        return objectMapper.writeValueAsString(cart);
+    }
+
+    @Benchmark
+    public CartInfo jsonDecode() throws JsonProcessingException {
+        return objectMapper.readValue(json, CartInfo.class);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode(EncodedSize size) {
+        size.record(this);
+        return CartSnapshotCodec.encode(cart);
+    }
+
+    @Benchmark
+    public List<CartSnapshotCodec.Line> binaryDecode() {
+        return CartSnapshotCodec.decode(binary);
+    }
+
+    /**
+     * Bytes per stored cart, as counters that are not normalized by the operations. JMH
+     * zeroes them at the start of every iteration, so the benchmarks set them as they run.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long jsonBytes;
+        public long binaryBytes;
+
+        void record(CartSnapshotBenchmark benchmark) {
+            jsonBytes = benchmark.jsonBytes;
+            binaryBytes = benchmark.binary.length;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.fixtures.EmbeddedApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product image serving under concurrent load, over real HTTP against the embedded Tomcat:
+ * ImageController against the plain resource handler it replaces
+ * ({@code image.serving.enabled=false}). Measures full downloads, revalidations (conditional
+ * requests with the validators of a first response) and range requests of one
+ * content-addressed upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ImageServingBenchmark {
+
+    @Param({"dedicated", "resource"})
+    String handler;
+
+    /** A typical card image and a large original. */
+    @Param({"60000", "1000000"})
+    int imageSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI imageUri;
+    private String etag;
+    private String lastModified;
+    private Path uploadDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        byte[] image = new byte[imageSize];
+        new Random(11).nextBytes(image);
+        uploadDir = Files.createTempDirectory("image-serving");
+        String name = sha256(image) + ".jpg";
+        Files.write(uploadDir.resolve(name), image);
+
+        context = EmbeddedApplication.start("upload.dir=" + uploadDir,
+                "image.serving.enabled=" + "dedicated".equals(handler));
+        String port = context.getEnvironment().getProperty("local.server.port");
+        imageUri = URI.create("http://localhost:" + port + "/product-images/" + name);
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpResponse<byte[]> first = client.send(HttpRequest.newBuilder(imageUri).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (first.statusCode() != 200 || first.body().length != imageSize) {
+            throw new IllegalStateException("Unexpected response " + first.statusCode());
+        }
+        etag = first.headers().firstValue("ETag").orElse(null);
+        lastModified = first.headers().firstValue("Last-Modified").orElse(null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.list(uploadDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(uploadDir);
+    }
+
+    @Benchmark
+    public int download() throws Exception {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(imageUri).build(),
+                HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+
+    @Benchmark
+    public int revalidate() throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(imageUri);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        } else if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+        HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+
+    @Benchmark
+    public int range() throws Exception {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(imageUri)
+                .header("Range", "bytes=" + imageSize / 2 + "-").build(), HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+
+    private static String sha256(byte[] data) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
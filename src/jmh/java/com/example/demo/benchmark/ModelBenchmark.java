@@ -0,0 +1,101 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Product;
+import com.example.demo.fixtures.CatalogFixtures;
+import com.example.demo.model.CartInfo;
+import com.example.demo.model.ProductInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory model hot paths: mapping Product entities to ProductInfo, as every catalog query
+ * and index rebuild does, and keeping CartInfo totals while a cart is built and changed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"1000", "10000"})
+        int catalogSize;
+
+        List<Product> products;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            products = CatalogFixtures.products(catalogSize, 9);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cart {
+
+        @Param({"5", "50"})
+        int lines;
+
+        List<ProductInfo> items;
+        CartInfo cart;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            items = new ArrayList<>(lines);
+            for (Product product : CatalogFixtures.products(lines, 13)) {
+                items.add(new ProductInfo(product));
+            }
+            cart = new CartInfo();
+            for (ProductInfo item : items) {
+                cart.addProduct(item, 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ProductInfo> productInfoMapping(Catalog catalog) {
+        List<ProductInfo> infos = new ArrayList<>(catalog.products.size());
+        for (Product product : catalog.products) {
+            infos.add(new ProductInfo(product));
+        }
+        return infos;
+    }
+
+    @Benchmark
+    public double cartBuild(Cart cart) {
+        CartInfo built = new CartInfo();
+        for (ProductInfo item : cart.items) {
+            built.addProduct(item, 2);
+        }
+        return built.getTotalAmount() + built.getTotalQuantity();
+    }
+
+    @Benchmark
+    public double cartQuantityUpdate(Cart cart) {
+        int line = cart.next++ % cart.lines;
+        cart.cart.updateProduct(cart.items.get(line).getCode(), 1 + cart.next % 3);
+        return cart.cart.getTotalAmount() + cart.cart.getTotalQuantity();
+    }
+
+    @Benchmark
+    public CartInfo cartCopy(Cart cart) {
+        return cart.cart.copy();
+    }
+}
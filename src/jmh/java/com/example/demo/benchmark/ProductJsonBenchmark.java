@@ -0,0 +1,89 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Product;
+import com.example.demo.fixtures.CatalogFixtures;
+import com.example.demo.model.ProductInfo;
+import com.example.demo.model.ProductJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a product list response as GET /api/products builds it: the ProductInfo items
+ * through Jackson's bean serializer against the pre-serialized ProductJson fragments kept by
+ * ProductJsonCache. Both produce the same bytes, which is checked at the start of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, Object> beanResponse;
+    private Map<String, Object> fragmentResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        List<Product> products = CatalogFixtures.products(pageSize, 3);
+        ObjectWriter writer = objectMapper.writerFor(ProductInfo.class);
+        List<ProductInfo> items = new ArrayList<>(pageSize);
+        List<ProductJson> fragments = new ArrayList<>(pageSize);
+        for (Product product : products) {
+            ProductInfo info = new ProductInfo(product);
+            items.add(info);
+            fragments.add(ProductJson.render(writer, info));
+        }
+        beanResponse = response(items);
+        fragmentResponse = response(fragments);
+
+        if (!Arrays.equals(objectMapper.writeValueAsBytes(beanResponse),
+                objectMapper.writeValueAsBytes(fragmentResponse))) {
+            throw new IllegalStateException("Fragments serialize differently");
+        }
+    }
+
+    @Benchmark
+    public byte[] beanSerialization() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(beanResponse);
+    }
+
+    @Benchmark
+    public byte[] cachedFragments() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(fragmentResponse);
+    }
+
+    private Map<String, Object> response(List<?> items) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", items);
+        response.put("currentPage", 0);
+        response.put("totalItems", 10_000L);
+        response.put("totalPages", 10_000 / pageSize);
+        return response;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dao.ProductCatalogIndex;
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.fixtures.CatalogFixtures;
+import com.example.demo.fixtures.EmbeddedApplication;
+import com.example.demo.model.FacetedPage;
+import com.example.demo.model.ProductInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductDAO.queryProducts, the query behind GET /api/products, against H2 at several catalog
+ * sizes: the first page, a page deep into the catalog and a name search. With
+ * {@code source=database} the catalog index is marked not ready, as while it is rebuilt, so
+ * every query goes through JPA and the database.
+ *
+ * Other catalog sizes: -Djmh.args="ProductQueryBenchmark -p catalogSize=100000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductQueryBenchmark {
+
+    @Param({"1000", "10000"})
+    int catalogSize;
+
+    @Param({"index", "database"})
+    String source;
+
+    private ConfigurableApplicationContext context;
+    private ProductDAO productDAO;
+    private Pageable firstPage;
+    private Pageable deepPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedApplication.start();
+        CatalogFixtures.insert(context.getBean(JdbcTemplate.class), CatalogFixtures.products(catalogSize, 5));
+        ProductCatalogIndex catalogIndex = context.getBean(ProductCatalogIndex.class);
+        catalogIndex.rebuild();
+        if ("database".equals(source)) {
+            ReflectionTestUtils.setField(catalogIndex, "ready", false);
+        }
+        productDAO = context.getBean(ProductDAO.class);
+        firstPage = PageRequest.of(0, 20);
+        deepPage = PageRequest.of(catalogSize / 20 / 2, 20);
+        if (productDAO.queryProducts(firstPage).getTotalElements() != catalogSize) {
+            throw new IllegalStateException("Catalog was not loaded");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public FacetedPage<ProductInfo> firstPage() {
+        return productDAO.queryProducts(firstPage, null, null, false);
+    }
+
+    @Benchmark
+    public FacetedPage<ProductInfo> deepPage() {
+        return productDAO.queryProducts(deepPage, null, null, false);
+    }
+
+    @Benchmark
+    public FacetedPage<ProductInfo> nameSearch() {
+        return productDAO.queryProducts(firstPage, "retriever", null, false);
+    }
+}
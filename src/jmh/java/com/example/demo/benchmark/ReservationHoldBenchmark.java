@@ -0,0 +1,199 @@
+package com.example.demo.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent checkouts racing for the same pets on an in-memory H2 table: the conditional
+ * update ProductRepository.hold runs against a pessimistic SELECT ... FOR UPDATE followed by
+ * the update. Every won hold is released again right away, so the pets keep being contended.
+ *
+ * The holds and conflicts counters give the throughput of each outcome. Every won hold is
+ * also claimed in memory; a claim on a pet another thread still holds is a double booking,
+ * and the iteration fails if there was any.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ReservationHoldBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:holds;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final long HOLD_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /** Few pets for heavy contention, many for mostly independent checkouts. */
+    @Param({"4", "256"})
+    int pets;
+
+    private Connection connection;
+    private AtomicLongArray holders;
+    private final AtomicLong nextReservationId = new AtomicLong();
+    private final AtomicLong doubleBookings = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop table if exists products");
+            ddl.execute("create table products (code varchar(255) primary key, status varchar(255), "
+                    + "version bigint default 0, hold_reservation_id bigint, held_until timestamp)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into products (code, status) values (?, 'AVAILABLE')")) {
+            for (int i = 0; i < pets; i++) {
+                insert.setString(1, code(i));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        holders = new AtomicLongArray(pets);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkNoDoubleBooking() throws SQLException {
+        long held;
+        try (Statement query = connection.createStatement();
+             ResultSet rs = query.executeQuery("select count(*) from products where hold_reservation_id is not null")) {
+            rs.next();
+            held = rs.getLong(1);
+        }
+        if (doubleBookings.get() != 0 || held != 0) {
+            throw new IllegalStateException(doubleBookings.get() + " double bookings, " + held + " holds left");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement drop = connection.createStatement()) {
+            drop.execute("drop table products");
+        }
+        connection.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Checkout {
+        public long holds;
+        public long conflicts;
+
+        Connection connection;
+        PreparedStatement hold;
+        PreparedStatement selectForUpdate;
+        PreparedStatement holdLocked;
+        PreparedStatement release;
+
+        @Setup(Level.Trial)
+        public void open() throws SQLException {
+            connection = DriverManager.getConnection(URL, "sa", "");
+            connection.setAutoCommit(false);
+            hold = connection.prepareStatement("update products set hold_reservation_id = ?, held_until = ?,"
+                    + " version = version + 1 where code = ? and (status is null or status <> 'ADOPTED')"
+                    + " and (held_until is null or held_until < ?)");
+            selectForUpdate = connection.prepareStatement(
+                    "select status, held_until from products where code = ? for update");
+            holdLocked = connection.prepareStatement("update products set hold_reservation_id = ?, held_until = ?,"
+                    + " version = version + 1 where code = ?");
+            release = connection.prepareStatement("update products set hold_reservation_id = null,"
+                    + " held_until = null, version = version + 1 where code = ? and hold_reservation_id = ?");
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            holds = 0;
+            conflicts = 0;
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public boolean optimistic(Checkout checkout) throws SQLException {
+        int pet = ThreadLocalRandom.current().nextInt(pets);
+        long reservationId = nextReservationId.incrementAndGet();
+        long now = System.currentTimeMillis();
+
+        checkout.hold.setLong(1, reservationId);
+        checkout.hold.setTimestamp(2, new Timestamp(now + HOLD_MILLIS));
+        checkout.hold.setString(3, code(pet));
+        checkout.hold.setTimestamp(4, new Timestamp(now));
+        boolean won = checkout.hold.executeUpdate() == 1;
+        checkout.connection.commit();
+        return settle(checkout, pet, reservationId, won);
+    }
+
+    @Benchmark
+    public boolean pessimistic(Checkout checkout) throws SQLException {
+        int pet = ThreadLocalRandom.current().nextInt(pets);
+        long reservationId = nextReservationId.incrementAndGet();
+        long now = System.currentTimeMillis();
+
+        boolean won;
+        checkout.selectForUpdate.setString(1, code(pet));
+        try (ResultSet rs = checkout.selectForUpdate.executeQuery()) {
+            rs.next();
+            Timestamp heldUntil = rs.getTimestamp(2);
+            won = !"ADOPTED".equals(rs.getString(1)) && (heldUntil == null || heldUntil.getTime() < now);
+        }
+        if (won) {
+            checkout.holdLocked.setLong(1, reservationId);
+            checkout.holdLocked.setTimestamp(2, new Timestamp(now + HOLD_MILLIS));
+            checkout.holdLocked.setString(3, code(pet));
+            checkout.holdLocked.executeUpdate();
+        }
+        checkout.connection.commit();
+        return settle(checkout, pet, reservationId, won);
+    }
+
+    private boolean settle(Checkout checkout, int pet, long reservationId, boolean won) throws SQLException {
+        if (!won) {
+            checkout.conflicts++;
+            return false;
+        }
+        checkout.holds++;
+        if (!holders.compareAndSet(pet, 0, reservationId)) {
+            doubleBookings.incrementAndGet();
+        }
+        // Give up the claim before the hold so a legitimate next holder never sees it
+        holders.compareAndSet(pet, reservationId, 0);
+        checkout.release.setString(1, code(pet));
+        checkout.release.setLong(2, reservationId);
+        checkout.release.executeUpdate();
+        checkout.connection.commit();
+        return true;
+    }
+
+    private static String code(int pet) {
+        return "P" + pet;
+    }
+}
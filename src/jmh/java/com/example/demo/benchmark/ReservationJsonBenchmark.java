@@ -0,0 +1,92 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Product;
+import com.example.demo.entity.Reservation.ReservationStatus;
+import com.example.demo.fixtures.CatalogFixtures;
+import com.example.demo.model.CartInfo;
+import com.example.demo.model.ProductInfo;
+import com.example.demo.model.ReservationSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JSON a reservation carries: writing the cart lines into reservedItemsDetails at
+ * checkout (ReservationService), reading them back as ReservationItemMigration does, and
+ * serializing a page of the admin listing, which embeds that JSON as a string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationJsonBenchmark {
+
+    @Param({"1", "10"})
+    int lines;
+
+    @Param({"50"})
+    int listingSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CartInfo cart;
+    private String itemsJson;
+    private List<ReservationSummary> listing;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        cart = new CartInfo();
+        for (Product product : CatalogFixtures.products(lines, 17)) {
+            cart.addProduct(new ProductInfo(product), 1);
+        }
+        itemsJson = objectMapper.writeValueAsString(cart.getCartLines());
+
+        listing = new ArrayList<>(listingSize);
+        ReservationStatus[] statuses = ReservationStatus.values();
+        for (int i = 0; i < listingSize; i++) {
+            listing.add(new ReservationSummary((long) i, "Customer " + i, "customer" + i + "@example.com",
+                    "555-0100", i + " Main Street", "2025-06-01", "Looking forward to meeting the pet",
+                    new Date(), statuses[i % statuses.length], String.format("P%07d", i), "Pet " + i, itemsJson));
+        }
+    }
+
+    @Benchmark
+    public String writeItems() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(cart.getCartLines());
+    }
+
+    @Benchmark
+    public double readItems() throws JsonProcessingException {
+        double total = 0;
+        for (JsonNode line : objectMapper.readTree(itemsJson)) {
+            JsonNode productInfo = line.path("productInfo");
+            total += productInfo.path("code").asText("").length() + productInfo.path("name").asText("").length()
+                    + productInfo.path("price").asDouble() * line.path("quantity").asInt(1);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public byte[] adminListing() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(listing);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.fixtures.EmbeddedApplication;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the servlet stack on platform threads (server.tomcat.threads.max=200) against
+ * virtual threads. Each operation fires {@code concurrency} product list requests at once and
+ * waits for all of them. Every request blocks for {@code blockingMillis}, standing in for the
+ * JDBC and file waits of the real endpoints (the in-memory test database barely blocks).
+ * Platform threads then serve at most 200 requests per wait, while virtual threads unmount
+ * while blocked.
+ *
+ * The virtual mode needs Java 21: mvn -Pjava21,jmh test-compile exec:exec. On an older JDK
+ * that mode fails in setup and only the platform results are reported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServletThreadingBenchmark {
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    @Param({"100", "400", "1000"})
+    int concurrency;
+
+    @Param({"20"})
+    int blockingMillis;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, running " + Runtime.version());
+        }
+        context = EmbeddedApplication.start(SimulatedBlocking.class,
+                "spring.threads.virtual.enabled=" + virtual,
+                "server.tomcat.threads.max=200",
+                "server.tomcat.accept-count=1000",
+                "benchmark.blocking-millis=" + blockingMillis);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products?size=20")).build();
+
+        AtomicInteger count = new AtomicInteger();
+        clientExecutor = Executors.newFixedThreadPool(32, runnable -> {
+            Thread thread = new Thread(runnable, "load-client-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor).build();
+        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+            throw new IllegalStateException("Product listing is not available");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (clientExecutor != null) {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public int burst() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+
+    /**
+     * Blocks every product list request for {@code benchmark.blocking-millis}. Not annotated,
+     * so the application's component scan does not pick it up in other benchmarks.
+     */
+    static class SimulatedBlocking {
+
+        @Bean
+        FilterRegistrationBean<Filter> simulatedBlockingFilter(
+                @Value("${benchmark.blocking-millis}") long millis) {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                chain.doFilter(request, response);
+            });
+            registration.addUrlPatterns("/api/products");
+            return registration;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.SqlMonitor;
+import com.example.demo.entity.Product;
+import com.example.demo.fixtures.CatalogFixtures;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of SqlMonitor's statement instrumentation on a product page query against an
+ * in-memory H2 database, reading every column the way Hibernate does: the driver's objects
+ * directly against the proxies of InstrumentedDataSource, inside a monitored request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlInstrumentationBenchmark {
+
+    private static final String PAGE_QUERY = "select code, name, type, breed, description, price, status, create_date "
+            + "from products where type = ? order by code limit ?";
+
+    @Param({"plain", "instrumented"})
+    String dataSource;
+
+    @Param({"1", "20"})
+    int rows;
+
+    private SqlMonitor monitor;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:sql-instrumentation;DB_CLOSE_DELAY=-1");
+        monitor = new SqlMonitor();
+        ReflectionTestUtils.setField(monitor, "enabled", true);
+        ReflectionTestUtils.setField(monitor, "slowQueryMillis", 200L);
+        ReflectionTestUtils.setField(monitor, "repeatedQueryThreshold", 10);
+        ReflectionTestUtils.setField(monitor, "recentRequestCount", 200);
+        ReflectionTestUtils.setField(monitor, "maxShapes", 500);
+        monitor.init();
+        DataSource source = "instrumented".equals(dataSource)
+                ? (DataSource) monitor.postProcessAfterInitialization(h2, "dataSource")
+                : h2;
+        connection = source.getConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists products");
+            statement.execute("create table products (code varchar(20) primary key, name varchar(255), "
+                    + "type varchar(20), breed varchar(255), description varchar(1000), price double, "
+                    + "status varchar(20), create_date timestamp)");
+        }
+        List<Product> products = CatalogFixtures.products(2_000, 7);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into products values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (Product product : products) {
+                insert.setString(1, product.getCode());
+                insert.setString(2, product.getName());
+                insert.setString(3, "DOG");
+                insert.setString(4, product.getBreed());
+                insert.setString(5, product.getDescription());
+                insert.setDouble(6, product.getPrice());
+                insert.setString(7, "AVAILABLE");
+                insert.setTimestamp(8, new java.sql.Timestamp(product.getCreateDate().getTime()));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long productPage() throws SQLException {
+        monitor.beginRequest("GET /api/products");
+        long checksum = 0;
+        try (PreparedStatement query = connection.prepareStatement(PAGE_QUERY)) {
+            query.setString(1, "DOG");
+            query.setInt(2, rows);
+            try (ResultSet result = query.executeQuery()) {
+                while (result.next()) {
+                    checksum += result.getString(1).length() + result.getString(2).length()
+                            + result.getString(3).length() + result.getString(4).length()
+                            + result.getString(5).length() + (long) result.getDouble(6)
+                            + result.getString(7).length() + result.getTimestamp(8).getTime();
+                }
+            }
+        }
+        monitor.endRequest("GET /api/products", 200);
+        return checksum;
+    }
+}
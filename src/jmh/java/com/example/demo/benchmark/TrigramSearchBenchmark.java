@@ -0,0 +1,120 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dao.TrigramIndex;
+import com.example.demo.entity.Product;
+import com.example.demo.fixtures.CatalogFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog search: the trigram index behind ProductCatalogIndex against the leading-wildcard
+ * LIKE query (plus count) that ProductDAO.queryProducts runs, on an in-memory H2 table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TrigramSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int catalogSize;
+
+    /** A prefix typed so far, a full word and a misspelling. */
+    @Param({"retr", "persian", "persain"})
+    String query;
+
+    private TrigramIndex trigramIndex;
+    private Connection connection;
+    private PreparedStatement likeQuery;
+    private PreparedStatement likeCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        List<Product> products = CatalogFixtures.products(catalogSize, 42);
+
+        trigramIndex = new TrigramIndex(3f, 2f, 1f);
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            trigramIndex.add(i, product.getName(), product.getBreed(), product.getDescription());
+        }
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:trigram" + catalogSize + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop table if exists products");
+            ddl.execute("create table products (code varchar(255) primary key, name varchar(255), breed varchar(255), "
+                    + "description varchar(1000), create_date timestamp)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("insert into products values (?, ?, ?, ?, ?)")) {
+            int batched = 0;
+            for (Product product : products) {
+                insert.setString(1, product.getCode());
+                insert.setString(2, product.getName());
+                insert.setString(3, product.getBreed());
+                insert.setString(4, product.getDescription());
+                insert.setTimestamp(5, new Timestamp(product.getCreateDate().getTime()));
+                insert.addBatch();
+                if (++batched % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        likeQuery = connection.prepareStatement(
+                "select * from products where lower(name) like ? order by create_date desc limit 100");
+        likeCount = connection.prepareStatement("select count(*) from products where lower(name) like ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement drop = connection.createStatement()) {
+            drop.execute("drop table products");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void trigram(Blackhole blackhole) {
+        TrigramIndex.Hits hits = trigramIndex.search(query);
+        blackhole.consume(hits.size());
+    }
+
+    @Benchmark
+    public void like(Blackhole blackhole) throws SQLException {
+        String likeValue = "%" + query.toLowerCase() + "%";
+        likeQuery.setString(1, likeValue);
+        try (ResultSet rs = likeQuery.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getString(1));
+            }
+        }
+        likeCount.setString(1, likeValue);
+        try (ResultSet rs = likeCount.executeQuery()) {
+            rs.next();
+            blackhole.consume(rs.getLong(1));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.fixtures.EmbeddedApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP load test of the whole application. Boots it on a random port against an in-memory H2
+ * database in MySQL mode, seeds products, accounts and reservations, then lets a fixed number
+ * of virtual users replay shopper and admin journeys over real HTTP sessions for a while.
+ * Reports the throughput and latency percentiles of every journey step:
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="users=32 duration=120"
+ *
+ * Options, as name=value: products, accounts, reservations (seeded), users (concurrent
+ * shoppers), admins, warmup and duration in seconds, think (milliseconds between steps), seed,
+ * report (the JSON report file). Users are a closed loop: with no think time they measure the
+ * throughput the application saturates at, with think time the latency at a given load.
+ * The same seed replays the same journeys against the same data.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("products", "10000");
+        DEFAULTS.put("accounts", "200");
+        DEFAULTS.put("reservations", "300");
+        DEFAULTS.put("users", "16");
+        DEFAULTS.put("admins", "1");
+        DEFAULTS.put("warmup", "15");
+        DEFAULTS.put("duration", "60");
+        DEFAULTS.put("think", "0");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("report", "target/loadtest-report.json");
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0 || !DEFAULTS.containsKey(arg.substring(0, equals))) {
+                System.err.println("Unknown option " + arg + ", expected one of " + DEFAULTS.keySet());
+                System.exit(2);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        int users = Integer.parseInt(options.get("users"));
+        int admins = Integer.parseInt(options.get("admins"));
+        long warmupSeconds = Long.parseLong(options.get("warmup"));
+        long durationSeconds = Long.parseLong(options.get("duration"));
+        long think = Long.parseLong(options.get("think"));
+        long seed = Long.parseLong(options.get("seed"));
+
+        ConfigurableApplicationContext context = EmbeddedApplication.start(
+                "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE");
+        try {
+            System.out.println("Seeding " + options);
+            LoadTestData data = LoadTestData.seed(context, Integer.parseInt(options.get("products")),
+                    Integer.parseInt(options.get("accounts")), Integer.parseInt(options.get("reservations")), seed);
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            List<VirtualUser> virtualUsers = new ArrayList<>();
+            for (int i = 0; i < users + admins; i++) {
+                virtualUsers.add(new VirtualUser(baseUrl, data, i < admins, think, seed + i, measureFrom, end));
+            }
+
+            System.out.printf("Running %d shoppers and %d admins: %ds warmup, %ds measured%n",
+                    users, admins, warmupSeconds, durationSeconds);
+            ExecutorService executor = Executors.newFixedThreadPool(virtualUsers.size());
+            List<Future<?>> running = new ArrayList<>();
+            for (VirtualUser virtualUser : virtualUsers) {
+                running.add(executor.submit(virtualUser));
+            }
+            for (Future<?> virtualUser : running) {
+                virtualUser.get();
+            }
+            executor.shutdown();
+
+            LoadTestReport report = new LoadTestReport(options, durationSeconds);
+            for (VirtualUser virtualUser : virtualUsers) {
+                report.add(virtualUser.getSamples());
+            }
+            report.print(System.out);
+            File reportFile = new File(options.get("report"));
+            report.write(reportFile);
+            System.out.println("Report written to " + reportFile);
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.dao.ProductCatalogIndex;
+import com.example.demo.entity.Account;
+import com.example.demo.entity.Product;
+import com.example.demo.fixtures.CatalogFixtures;
+import com.example.demo.model.CartInfo;
+import com.example.demo.model.CustomerInfo;
+import com.example.demo.model.ProductInfo;
+import com.example.demo.repository.AccountRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.service.ReservationService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The data a load test runs against, generated from the seed so that every run starts from the
+ * same catalog. Products are the {@link CatalogFixtures} of the benchmarks, accounts share one
+ * password hashed once, and the reservations go through ReservationService so that their pets
+ * are held like real ones.
+ */
+final class LoadTestData {
+
+    static final String PASSWORD = "loadtest123";
+    static final String ADMIN_EMAIL = "admin@petmart.com";
+    static final String ADMIN_PASSWORD = "admin123";
+
+    // What shoppers type: breeds, partial words, a typo and a word no pet has
+    static final String[] SEARCH_TERMS = {
+            "retriever", "persian", "husky", "golden", "parrot", "maine coon", "labrador puppy", "playful",
+            "betta", "hamster", "shepard", "unicorn"
+    };
+
+    private final List<String> productCodes;
+    private final List<String> availableCodes;
+    private final List<String> accountEmails;
+
+    private LoadTestData(List<String> productCodes, List<String> availableCodes, List<String> accountEmails) {
+        this.productCodes = productCodes;
+        this.availableCodes = availableCodes;
+        this.accountEmails = accountEmails;
+    }
+
+    static LoadTestData seed(ApplicationContext context, int productCount, int accountCount, int reservationCount,
+                             long seed) throws Exception {
+        Random random = new Random(seed);
+        List<Product> products = CatalogFixtures.products(productCount, seed);
+        CatalogFixtures.insert(context.getBean(JdbcTemplate.class), products);
+        context.getBean(ProductCatalogIndex.class).rebuild();
+
+        List<String> productCodes = new ArrayList<>();
+        List<String> availableCodes = new ArrayList<>();
+        for (Product product : products) {
+            productCodes.add(product.getCode());
+            if ("AVAILABLE".equals(product.getStatus())) {
+                availableCodes.add(product.getCode());
+            }
+        }
+        Collections.shuffle(availableCodes, random);
+
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<Account> accounts = new ArrayList<>();
+        List<String> accountEmails = new ArrayList<>();
+        for (int i = 0; i < accountCount; i++) {
+            Account account = new Account();
+            account.setEmail(String.format("shopper%05d@loadtest.petmart.com", i));
+            account.setPassword(hash);
+            account.setFirstName("Shopper");
+            account.setLastName(String.valueOf(i));
+            account.setPhone(String.format("555%07d", i));
+            account.setRole(Account.ROLE_USER);
+            account.setActive(true);
+            accounts.add(account);
+            accountEmails.add(account.getEmail());
+        }
+        context.getBean(AccountRepository.class).saveAll(accounts);
+
+        // Pending reservations for the admins to work through, of pets the shoppers then leave alone
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        ReservationService reservationService = context.getBean(ReservationService.class);
+        for (int i = 0; i < reservationCount && availableCodes.size() > 1; i++) {
+            CartInfo cart = new CartInfo();
+            int pets = 1 + random.nextInt(2);
+            for (int p = 0; p < pets; p++) {
+                String code = availableCodes.remove(availableCodes.size() - 1);
+                cart.addProduct(new ProductInfo(productRepository.findById(code).orElseThrow()), 1);
+            }
+            reservationService.createReservationFromCart(cart,
+                    customer(accountEmails.isEmpty() ? ADMIN_EMAIL : accountEmails.get(i % accountEmails.size())));
+        }
+        return new LoadTestData(productCodes, availableCodes, accountEmails);
+    }
+
+    static CustomerInfo customer(String email) {
+        CustomerInfo customer = new CustomerInfo();
+        customer.setName("Load Test Shopper");
+        customer.setEmail(email);
+        customer.setPhone("5550000000");
+        customer.setAddress("1 Benchmark Street");
+        customer.setPreferredVisitDate("2030-01-01");
+        customer.setMessage("Reserved by the load test");
+        customer.setValid(true);
+        return customer;
+    }
+
+    List<String> getProductCodes() {
+        return productCodes;
+    }
+
+    List<String> getAvailableCodes() {
+        return availableCodes;
+    }
+
+    List<String> getAccountEmails() {
+        return accountEmails;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles per step over the measured part of the run, printed as a
+ * table and written as JSON next to the options, to compare runs.
+ */
+final class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final Map<String, String> options;
+    private final long durationSeconds;
+    private final Map<Step, StepSamples> steps = new EnumMap<>(Step.class);
+
+    LoadTestReport(Map<String, String> options, long durationSeconds) {
+        this.options = options;
+        this.durationSeconds = durationSeconds;
+        for (Step step : Step.values()) {
+            steps.put(step, new StepSamples(step));
+        }
+    }
+
+    void add(Map<Step, StepSamples> samples) {
+        for (StepSamples stepSamples : samples.values()) {
+            steps.get(stepSamples.getStep()).add(stepSamples);
+        }
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-8s %-40s %8s %8s %7s %9s %9s %9s %9s %9s %9s %9s%n", "Journey", "Step", "Requests",
+                "Req/s", "Errors", "Conflicts", "p50 ms", "p90 ms", "p95 ms", "p99 ms", "p99.9 ms", "Max ms");
+        long total = 0;
+        for (Map<String, Object> step : rows()) {
+            long requests = (Long) step.get("requests");
+            total += requests;
+            out.printf("%-8s %-40s %8d %8.1f %7d %9d", step.get("journey"), step.get("step"), requests,
+                    step.get("throughput"), step.get("errors"), step.get("conflicts"));
+            for (double percentile : PERCENTILES) {
+                out.printf(" %9.2f", step.get("p" + format(percentile)));
+            }
+            out.printf(" %9.2f%n", step.get("max"));
+        }
+        out.printf("%-49s %8d %8.1f%n", "Total", total, (double) total / durationSeconds);
+    }
+
+    void write(File file) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("steps", rows());
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+
+    /**
+     * One row per step that was requested, latencies in milliseconds.
+     */
+    private List<Map<String, Object>> rows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (StepSamples samples : steps.values()) {
+            if (samples.getCount() == 0) {
+                continue;
+            }
+            long[] sorted = samples.sorted();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("journey", samples.getStep().getJourney());
+            row.put("step", samples.getStep().getRequest());
+            row.put("requests", (long) samples.getCount());
+            row.put("throughput", (double) samples.getCount() / durationSeconds);
+            row.put("errors", samples.getErrors());
+            row.put("conflicts", samples.getConflicts());
+            for (double percentile : PERCENTILES) {
+                row.put("p" + format(percentile), millis(StepSamples.percentile(sorted, percentile)));
+            }
+            row.put("max", millis(sorted[sorted.length - 1]));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.loadtest;
+
+/**
+ * The requests of the journeys, each measured on its own.
+ */
+enum Step {
+
+    SIGN_IN("session", "POST /api/signin"),
+    SIGN_OUT("session", "POST /api/signout"),
+    BROWSE_PAGE("browse", "GET /api/products?page"),
+    PRODUCT_DETAIL("browse", "GET /api/products/{code}"),
+    SEARCH("search", "GET /api/products?searchTerm"),
+    CART_ADD("reserve", "POST /api/cart/add"),
+    CART_VIEW("reserve", "GET /api/cart"),
+    CHECKOUT("reserve", "POST /api/reservations"),
+    CART_CLEAR("reserve", "DELETE /api/cart"),
+    ADMIN_LIST("admin", "GET /api/admin/reservations"),
+    ADMIN_STATUS("admin", "PUT /api/admin/reservations/{id}/status");
+
+    private final String journey;
+    private final String request;
+
+    Step(String journey, String request) {
+        this.journey = journey;
+        this.request = request;
+    }
+
+    String getJourney() {
+        return journey;
+    }
+
+    String getRequest() {
+        return request;
+    }
+}
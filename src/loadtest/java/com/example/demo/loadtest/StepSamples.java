@@ -0,0 +1,79 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Every latency of one step of one virtual user, kept in full so that percentiles are exact,
+ * with the responses counted by outcome. Not thread-safe: each virtual user has its own and
+ * they are merged once the run is over.
+ */
+final class StepSamples {
+
+    private final Step step;
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private long conflicts;
+
+    StepSamples(Step step) {
+        this.step = step;
+    }
+
+    void record(long nanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (status == 409) {
+            conflicts++;
+        } else if (status < 200 || status >= 400) {
+            errors++;
+        }
+    }
+
+    void add(StepSamples other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, Math.max(count + other.count, latencies.length * 2));
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        errors += other.errors;
+        conflicts += other.conflicts;
+    }
+
+    Step getStep() {
+        return step;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * The latencies, sorted for {@link #percentile}.
+     */
+    long[] sorted() {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted latencies, in nanoseconds.
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+}
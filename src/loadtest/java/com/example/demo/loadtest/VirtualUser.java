@@ -0,0 +1,218 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * One browser session after another: a shopper signs in, makes a number of journeys (browsing
+ * pages and pets, searching, or reserving pets through the cart) and signs out; an admin stays
+ * signed in and accepts or rejects pending reservations. Requests made between the end of the
+ * warmup and the end of the run are recorded per step.
+ */
+final class VirtualUser implements Runnable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int JOURNEYS_PER_SESSION = 20;
+    private static final int PAGE_SIZE = 20;
+
+    private final String baseUrl;
+    private final LoadTestData data;
+    private final boolean admin;
+    private final long think;
+    private final Random random;
+    private final long measureFrom;
+    private final long end;
+    private final Map<Step, StepSamples> samples = new EnumMap<>(Step.class);
+    private HttpClient client;
+
+    VirtualUser(String baseUrl, LoadTestData data, boolean admin, long think, long seed, long measureFrom, long end) {
+        this.baseUrl = baseUrl;
+        this.data = data;
+        this.admin = admin;
+        this.think = think;
+        this.random = new Random(seed);
+        this.measureFrom = measureFrom;
+        this.end = end;
+        for (Step step : Step.values()) {
+            samples.put(step, new StepSamples(step));
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (System.nanoTime() < end) {
+                // A new client per session starts without cookies, like a new browser
+                client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .cookieHandler(new CookieManager())
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                if (admin) {
+                    adminSession();
+                } else {
+                    shopperSession();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    Map<Step, StepSamples> getSamples() {
+        return samples;
+    }
+
+    private void shopperSession() throws InterruptedException {
+        List<String> accounts = data.getAccountEmails();
+        String email = accounts.get(random.nextInt(accounts.size()));
+        if (!signIn(email, LoadTestData.PASSWORD)) {
+            return;
+        }
+        for (int i = 0; i < JOURNEYS_PER_SESSION && System.nanoTime() < end; i++) {
+            int journey = random.nextInt(100);
+            if (journey < 60) {
+                browse();
+            } else if (journey < 85) {
+                search();
+            } else {
+                reserve(email);
+            }
+        }
+        send(Step.SIGN_OUT, post("/api/signout", null));
+    }
+
+    private void adminSession() throws InterruptedException {
+        if (!signIn(LoadTestData.ADMIN_EMAIL, LoadTestData.ADMIN_PASSWORD)) {
+            return;
+        }
+        while (System.nanoTime() < end) {
+            Response pending = send(Step.ADMIN_LIST,
+                    get("/api/admin/reservations?page=0&size=" + PAGE_SIZE + "&status=PENDING"));
+            List<Long> ids = new ArrayList<>();
+            if (pending.status() == 200) {
+                for (JsonNode item : json(pending).path("items")) {
+                    ids.add(item.path("id").asLong());
+                }
+            }
+            if (ids.isEmpty()) {
+                // Nothing to review, look again later
+                Thread.sleep(Math.max(think, 100));
+                continue;
+            }
+            Long id = ids.get(random.nextInt(ids.size()));
+            String status = random.nextInt(10) < 7 ? "ACCEPTED" : "REJECTED";
+            send(Step.ADMIN_STATUS, put("/api/admin/reservations/" + id + "/status", Map.of("status", status)));
+        }
+    }
+
+    private boolean signIn(String email, String password) throws InterruptedException {
+        return send(Step.SIGN_IN, post("/api/signin", Map.of("email", email, "password", password))).status() == 200;
+    }
+
+    private void browse() throws InterruptedException {
+        send(Step.BROWSE_PAGE, get("/api/products?page=" + random.nextInt(10) + "&size=" + PAGE_SIZE));
+        List<String> codes = data.getProductCodes();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            send(Step.PRODUCT_DETAIL, get("/api/products/" + codes.get(random.nextInt(codes.size()))));
+        }
+    }
+
+    private void search() throws InterruptedException {
+        String term = LoadTestData.SEARCH_TERMS[random.nextInt(LoadTestData.SEARCH_TERMS.length)];
+        send(Step.SEARCH, get("/api/products?page=0&size=" + PAGE_SIZE + "&searchTerm="
+                + URLEncoder.encode(term, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Puts one or two pets in the cart and reserves them. Shoppers pick from the same pets, so
+     * some checkouts lose the pet to another one (409) and clear their cart.
+     */
+    private void reserve(String email) throws InterruptedException {
+        List<String> codes = data.getAvailableCodes();
+        for (int i = 1 + random.nextInt(2); i > 0; i--) {
+            send(Step.CART_ADD, post("/api/cart/add",
+                    Map.of("code", codes.get(random.nextInt(codes.size())), "quantity", 1)));
+        }
+        send(Step.CART_VIEW, get("/api/cart"));
+        if (send(Step.CHECKOUT, post("/api/reservations", LoadTestData.customer(email))).status() != 200) {
+            send(Step.CART_CLEAR, request("/api/cart").DELETE());
+        }
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest.Builder post(String path, Object body) {
+        return request(path).header("Content-Type", "application/json").POST(body(body));
+    }
+
+    private HttpRequest.Builder put(String path, Object body) {
+        return request(path).header("Content-Type", "application/json").PUT(body(body));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+    }
+
+    private static HttpRequest.BodyPublisher body(Object body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot write request body", e);
+        }
+    }
+
+    private static JsonNode json(Response response) {
+        try {
+            return MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            return MAPPER.missingNode();
+        }
+    }
+
+    /**
+     * Sends the request and records it, reading the whole body. A request that fails without
+     * a response is recorded with status 0.
+     */
+    private Response send(Step step, HttpRequest.Builder request) throws InterruptedException {
+        long started = System.nanoTime();
+        Response response;
+        try {
+            HttpResponse<byte[]> httpResponse = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            response = new Response(httpResponse.statusCode(), httpResponse.body());
+        } catch (IOException e) {
+            response = new Response(0, new byte[0]);
+        }
+        if (started >= measureFrom && started < end) {
+            samples.get(step).record(System.nanoTime() - started, response.status());
+        }
+        if (think > 0) {
+            // Between half and one and a half times the think time
+            Thread.sleep(think / 2 + (long) (random.nextDouble() * think));
+        }
+        return response;
+    }
+
+    private record Response(int status, byte[] body) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.config;
+
+import com.example.demo.dao.ProductJsonCache;
+import com.example.demo.service.AccountCache;
+import com.example.demo.service.BoundedPasswordEncoder;
+import com.example.demo.service.CartStore;
+import com.example.demo.service.CartWriteBehind;
+import com.example.demo.service.CatalogResponseCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Publishes the counters the application already keeps as meters, read from the same
+ * {@code getStats()} as the admin stats endpoints when Prometheus scrapes: carts in memory and
+ * waiting to be written, hits and misses of the caches, and the password hashing pool, whose
+ * hashing and waiting times are timers.
+ * Sessions come with Spring Boot's Tomcat metrics ({@code tomcat.sessions.*}).
+ */
+@Component
+public class ApplicationMetrics implements MeterBinder {
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartWriteBehind cartWriteBehind;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private ProductJsonCache productJsonCache;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("carts.active", cartStore, CartStore::size)
+                .description("Carts held in memory")
+                .register(registry);
+        Gauge.builder("carts.write-behind.pending", cartWriteBehind,
+                        writeBehind -> stat(writeBehind.getStats(), "pending"))
+                .description("Cart snapshots waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("carts.write-behind.written", cartWriteBehind,
+                        writeBehind -> stat(writeBehind.getStats(), "written"))
+                .register(registry);
+        FunctionCounter.builder("carts.write-behind.failed-flushes", cartWriteBehind,
+                        writeBehind -> stat(writeBehind.getStats(), "failedFlushes"))
+                .register(registry);
+
+        cache(registry, "accounts", accountCache, AccountCache::getStats, "entries");
+        cache(registry, "catalog.responses", catalogResponseCache, CatalogResponseCache::getStats, "entries");
+        cache(registry, "product.fragments", productJsonCache, ProductJsonCache::getStats, "fragments");
+
+        Gauge.builder("password.hashing.active", passwordEncoder, encoder -> stat(encoder.getStats(), "active"))
+                .register(registry);
+        Gauge.builder("password.hashing.queued", passwordEncoder, encoder -> stat(encoder.getStats(), "queued"))
+                .register(registry);
+        FunctionCounter.builder("password.hashing.rejected", passwordEncoder,
+                        encoder -> stat(encoder.getStats(), "rejected"))
+                .register(registry);
+        passwordEncoder.bindTo(registry);
+    }
+
+    /**
+     * {@code cache.gets} by result as Micrometer names cache meters, the size, and the hit ratio
+     * so far. Meters only keep a weak reference to what they read, so it is the cache bean itself.
+     */
+    private <T> void cache(MeterRegistry registry, String name, T cache, Function<T, Map<String, Object>> stats,
+                           String sizeKey) {
+        FunctionCounter.builder("cache.gets", cache, source -> stat(stats.apply(source), "hits"))
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, source -> stat(stats.apply(source), "misses"))
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        Gauge.builder("cache.size", cache, source -> stat(stats.apply(source), sizeKey))
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", cache, source -> {
+                    Map<String, Object> current = stats.apply(source);
+                    double hits = stat(current, "hits");
+                    double lookups = hits + stat(current, "misses");
+                    return lookups == 0 ? 0 : hits / lookups;
+                })
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    private static double stat(Map<String, Object> stats, String key) {
+        Object value = stats.get(key);
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency timers for every controller method, tagged {@code handler=Controller.method}:
+ * <ul>
+ * <li>{@code handler.requests}, the time in Spring MVC per outcome (SUCCESS, CLIENT_ERROR...),
+ * with HdrHistogram percentiles and histogram buckets,</li>
+ * <li>{@code handler.db}, the statement time of the request as seen by the {@link SqlMonitor},
+ * authentication included,</li>
+ * <li>{@code handler.serialization}, writing the response body or rendering the view.</li>
+ * </ul>
+ * Recording does not allocate: the timers of a handler are created on its first request and
+ * the timestamps of a request live in an array reused by its thread. Replaces Spring Boot's
+ * {@code http.server.requests} observation, which builds a context and tags per request.
+ */
+@ControllerAdvice
+public class HandlerMetrics implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private static final String[] OUTCOMES = {"INFORMATIONAL", "SUCCESS", "REDIRECTION", "CLIENT_ERROR", "SERVER_ERROR"};
+    private static final int CLIENT_ERROR = 3;
+    private static final int SERVER_ERROR = 4;
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    // Slots of the per-thread timestamps
+    private static final int STARTED = 0;
+    private static final int BODY_STARTED = 1;
+    private static final int HANDLED = 2;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SqlMonitor sqlMonitor;
+
+    private final Map<Method, HandlerTimers> timers = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> timestamps = ThreadLocal.withInitial(() -> new long[3]);
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (handler instanceof HandlerMethod) {
+            long[] times = timestamps.get();
+            times[STARTED] = System.nanoTime();
+            times[BODY_STARTED] = 0;
+            times[HANDLED] = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+                            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @NonNull MethodParameter returnType, @NonNull MediaType contentType,
+                                  @NonNull Class<? extends HttpMessageConverter<?>> converterType,
+                                  @NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response) {
+        long[] times = timestamps.get();
+        if (times[STARTED] != 0 && times[BODY_STARTED] == 0) {
+            times[BODY_STARTED] = System.nanoTime();
+        }
+        return body;
+    }
+
+    @Override
+    public void postHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                           @NonNull Object handler, ModelAndView modelAndView) {
+        long[] times = timestamps.get();
+        if (times[STARTED] != 0) {
+            times[HANDLED] = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        long[] times = timestamps.get();
+        if (!(handler instanceof HandlerMethod handlerMethod) || times[STARTED] == 0) {
+            return;
+        }
+        long completed = System.nanoTime();
+        HandlerTimers handlerTimers = timers.get(handlerMethod.getMethod());
+        if (handlerTimers == null) {
+            handlerTimers = timers.computeIfAbsent(handlerMethod.getMethod(),
+                    method -> new HandlerTimers(handlerMethod.getBeanType().getSimpleName() + "." + method.getName()));
+        }
+
+        int outcome = Math.min(Math.max(response.getStatus() / 100 - 1, 0), SERVER_ERROR);
+        // An exception no handler turned into an error status
+        if (ex != null && outcome < CLIENT_ERROR) {
+            outcome = SERVER_ERROR;
+        }
+        handlerTimers.requests(outcome).record(completed - times[STARTED], TimeUnit.NANOSECONDS);
+        if (sqlMonitor.isEnabled()) {
+            handlerTimers.db.record(sqlMonitor.currentRequestSqlNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (times[BODY_STARTED] != 0 && times[HANDLED] >= times[BODY_STARTED]) {
+            handlerTimers.serialization.record(times[HANDLED] - times[BODY_STARTED], TimeUnit.NANOSECONDS);
+        } else if (times[HANDLED] != 0) {
+            // A view, rendered after the handler returned
+            handlerTimers.serialization.record(completed - times[HANDLED], TimeUnit.NANOSECONDS);
+        }
+        times[STARTED] = 0;
+    }
+
+    private Timer timer(String name, String handler, String outcome) {
+        Timer.Builder builder = Timer.builder(name)
+                .tag("handler", handler)
+                .publishPercentiles(PERCENTILES)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10));
+        if (outcome != null) {
+            builder.tag("outcome", outcome).publishPercentileHistogram();
+        }
+        return builder.register(meterRegistry);
+    }
+
+    private final class HandlerTimers {
+
+        private final String handler;
+        private final AtomicReferenceArray<Timer> requestsByOutcome = new AtomicReferenceArray<>(OUTCOMES.length);
+        private final Timer db;
+        private final Timer serialization;
+
+        HandlerTimers(String handler) {
+            this.handler = handler;
+            this.db = timer("handler.db", handler, null);
+            this.serialization = timer("handler.serialization", handler, null);
+        }
+
+        Timer requests(int outcome) {
+            Timer timer = requestsByOutcome.get(outcome);
+            if (timer == null) {
+                // Registering twice returns the same timer, so a race is harmless
+                timer = timer("handler.requests", handler, OUTCOMES[outcome]);
+                requestsByOutcome.set(outcome, timer);
+            }
+            return timer;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements report to the {@link SqlMonitor}: how long every
+ * execution took and how many rows it read or wrote, per query shape. The driver's objects
+ * are wrapped in JDK proxies, so nothing is copied or formatted on the way, and the shape of
+ * a prepared statement is looked up once when it is prepared. Parameters are never read.
+ */
+class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final SqlMonitor monitor;
+
+    InstrumentedDataSource(DataSource target, SqlMonitor monitor) {
+        super(target);
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[] {type}, handler));
+    }
+
+    /**
+     * Proxies compare by identity: Hibernate keeps the statements and result sets it opened
+     * in hash maps until it closes them.
+     */
+    private abstract static class Handler implements InvocationHandler {
+
+        private final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return args.length == 1 && proxy == args[0];
+                case "hashCode":
+                    if (method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return handle(method, args);
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends Handler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class,
+                            new StatementHandler((Statement) result, monitor.shape((String) args[0])));
+                case "prepareCall":
+                    return proxy(CallableStatement.class,
+                            new StatementHandler((Statement) result, monitor.shape((String) args[0])));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, null));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private class StatementHandler extends Handler {
+
+        // Null for a plain Statement, whose SQL comes with each execution
+        private final SqlMonitor.QueryShape preparedShape;
+
+        // The shape of the last execution, for the result set fetched after it
+        private SqlMonitor.QueryShape shape;
+
+        StatementHandler(Statement target, SqlMonitor.QueryShape preparedShape) {
+            super(target);
+            this.preparedShape = preparedShape;
+            this.shape = preparedShape;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(name, method, args);
+            }
+            Object result = delegate(method, args);
+            if ("getResultSet".equals(name) && result != null) {
+                return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result, shape));
+            }
+            return result;
+        }
+
+        private Object execute(String name, Method method, Object[] args) throws Throwable {
+            if (args != null && args.length > 0 && args[0] instanceof String sql) {
+                shape = monitor.shape(sql);
+            } else if (preparedShape == null) {
+                shape = monitor.shape(SqlMonitor.STATEMENT_BATCH);
+            }
+            long started = System.nanoTime();
+            Object result;
+            try {
+                result = delegate(method, args);
+            } catch (Throwable e) {
+                monitor.recordExecution(shape, System.nanoTime() - started, 0, true);
+                throw e;
+            }
+            monitor.recordExecution(shape, System.nanoTime() - started, updatedRows(result), false);
+            if ("executeQuery".equals(name)) {
+                return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result, shape));
+            }
+            return result;
+        }
+
+        private long updatedRows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return Math.max(0, ((Number) result).longValue());
+            }
+            long rows = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(0, count);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    rows += Math.max(0, count);
+                }
+            }
+            return rows;
+        }
+    }
+
+    private class ResultSetHandler extends Handler {
+
+        private final ResultSet target;
+        private final SqlMonitor.QueryShape shape;
+
+        private long rows;
+        private boolean reported;
+
+        ResultSetHandler(ResultSet target, SqlMonitor.QueryShape shape) {
+            super(target);
+            this.target = target;
+            this.shape = shape;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("next".equals(name)) {
+                boolean next = target.next();
+                if (next) {
+                    rows++;
+                } else {
+                    report();
+                }
+                return next;
+            }
+            if ("close".equals(name)) {
+                report();
+            }
+            return delegate(method, args);
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                monitor.recordRows(shape, rows);
+            }
+        }
+    }
+}
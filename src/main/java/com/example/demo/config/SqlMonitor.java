@@ -0,0 +1,433 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Statement-level SQL instrumentation, replacing show-sql and the Hibernate SQL and binder
+ * logging, which formatted and wrote out every statement and its parameters on the request
+ * thread.
+ *
+ * Wraps the application's DataSource ({@link InstrumentedDataSource}) and keeps, per query
+ * shape (the SQL with literals and IN lists folded), counts, rows and a latency histogram.
+ * {@link SqlMonitorFilter} scopes statements to the request that ran them: requests that run
+ * one shape {@code repeated-query-threshold} times or more are reported as N+1 suspects, and
+ * the last {@code recent-requests} requests that touched the database are kept in a ring
+ * buffer. Slow statements are sampled into the log, at most once a minute per shape, without
+ * parameters. All of it is served at {@code /api/admin/sql/stats}.
+ */
+@Component
+public class SqlMonitor implements BeanPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlMonitor.class);
+
+    static final String STATEMENT_BATCH = "<statement batch>";
+
+    // Upper bounds of the latency buckets, the last bucket takes the rest
+    private static final long[] BUCKET_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000};
+    private static final int MAX_NORMALIZED = 2_000;
+    private static final int MAX_REPEATED = 100;
+    private static final int SLOW_SAMPLES = 50;
+    private static final int REPORTED_SHAPES = 50;
+    private static final long SLOW_LOG_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    @Value("${sql.instrumentation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sql.instrumentation.slow-query-ms:200}")
+    private long slowQueryMillis;
+
+    @Value("${sql.instrumentation.repeated-query-threshold:10}")
+    private int repeatedQueryThreshold;
+
+    @Value("${sql.instrumentation.recent-requests:200}")
+    private int recentRequestCount;
+
+    @Value("${sql.instrumentation.max-shapes:500}")
+    private int maxShapes;
+
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+    private final Map<String, QueryShape> shapes = new ConcurrentHashMap<>();
+    private final QueryShape otherShapes = new QueryShape("<other>");
+    private final Map<String, RepeatedQuery> repeatedQueries = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<RequestQueries> currentRequest = new ThreadLocal<>();
+    private AtomicReferenceArray<RequestTrace> recentRequests;
+    private final AtomicLong requestsTraced = new AtomicLong();
+    private final AtomicReferenceArray<SlowQuery> slowQueries = new AtomicReferenceArray<>(SLOW_SAMPLES);
+    private final AtomicLong slowQueryCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        recentRequests = new AtomicReferenceArray<>(Math.max(1, recentRequestCount));
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (enabled && bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+            logger.info("Instrumenting SQL statements of data source '{}'", beanName);
+            return new InstrumentedDataSource(dataSource, this);
+        }
+        return bean;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Scope the statements of the current thread to a request, until {@link #endRequest}.
+     *
+     * @param request method and path, to tell where a slow query came from
+     */
+    public void beginRequest(String request) {
+        if (enabled) {
+            currentRequest.set(new RequestQueries(request, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Close the request's scope, report it if it repeated a query, and keep its trace.
+     *
+     * @param endpoint the handler's path pattern, so that requests to one endpoint add up
+     */
+    public void endRequest(String endpoint, int status) {
+        RequestQueries request = currentRequest.get();
+        if (request == null) {
+            return;
+        }
+        currentRequest.remove();
+        if (request.statements == 0) {
+            return;
+        }
+
+        QueryShape mostRepeated = null;
+        int repeats = 0;
+        for (Map.Entry<QueryShape, int[]> executions : request.executionsByShape.entrySet()) {
+            if (executions.getValue()[0] > repeats) {
+                mostRepeated = executions.getKey();
+                repeats = executions.getValue()[0];
+            }
+        }
+        if (repeats >= repeatedQueryThreshold) {
+            reportRepeated(endpoint, mostRepeated, repeats);
+        }
+
+        int slots = recentRequests.length();
+        recentRequests.set((int) (requestsTraced.getAndIncrement() % slots), new RequestTrace(Instant.now(),
+                endpoint, status, request.statements, request.rows, request.sqlNanos,
+                System.nanoTime() - request.startedAt, repeats > 1 ? mostRepeated.sql : null, repeats));
+    }
+
+    /**
+     * Time the current request spent executing statements so far, 0 outside a request.
+     */
+    public long currentRequestSqlNanos() {
+        RequestQueries request = currentRequest.get();
+        return request != null ? request.sqlNanos : 0;
+    }
+
+    QueryShape shape(String sql) {
+        String key = normalized.get(sql);
+        if (key == null) {
+            key = normalize(sql);
+            if (normalized.size() < MAX_NORMALIZED) {
+                normalized.put(sql, key);
+            }
+        }
+        QueryShape shape = shapes.get(key);
+        if (shape == null) {
+            if (shapes.size() >= maxShapes) {
+                return otherShapes;
+            }
+            shape = shapes.computeIfAbsent(key, QueryShape::new);
+        }
+        return shape;
+    }
+
+    void recordExecution(QueryShape shape, long nanos, long rows, boolean failed) {
+        shape.record(nanos, rows, failed);
+        RequestQueries request = currentRequest.get();
+        if (request != null) {
+            request.statements++;
+            request.rows += rows;
+            request.sqlNanos += nanos;
+            request.executionsByShape.computeIfAbsent(shape, key -> new int[1])[0]++;
+        }
+        if (nanos >= TimeUnit.MILLISECONDS.toNanos(slowQueryMillis)) {
+            reportSlow(shape, nanos, request);
+        }
+    }
+
+    void recordRows(QueryShape shape, long rows) {
+        shape.rows.add(rows);
+        RequestQueries request = currentRequest.get();
+        if (request != null) {
+            request.rows += rows;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("slowQueryMillis", slowQueryMillis);
+        stats.put("repeatedQueryThreshold", repeatedQueryThreshold);
+
+        List<QueryShape> all = new ArrayList<>(shapes.values());
+        if (otherShapes.executions.sum() > 0) {
+            all.add(otherShapes);
+        }
+        long statements = 0;
+        long failures = 0;
+        long rows = 0;
+        long nanos = 0;
+        for (QueryShape shape : all) {
+            statements += shape.executions.sum();
+            failures += shape.failures.sum();
+            rows += shape.rows.sum();
+            nanos += shape.nanos.sum();
+        }
+        stats.put("statements", statements);
+        stats.put("failures", failures);
+        stats.put("rows", rows);
+        stats.put("sqlMillis", nanos / 1_000_000.0);
+        stats.put("shapeCount", all.size());
+
+        all.sort(Comparator.comparingLong((QueryShape shape) -> shape.nanos.sum()).reversed());
+        stats.put("shapes", all.stream().limit(REPORTED_SHAPES).map(QueryShape::toMap).toList());
+        stats.put("repeatedQueries", repeatedQueries.values().stream()
+                .sorted(Comparator.comparingLong((RepeatedQuery repeated) -> repeated.requests.sum()).reversed())
+                .map(RepeatedQuery::toMap)
+                .toList());
+        stats.put("slowQueries", newestFirst(slowQueries, slowQueryCount.get()).stream()
+                .map(SlowQuery::toMap).toList());
+        stats.put("recentRequests", newestFirst(recentRequests, requestsTraced.get()).stream()
+                .map(RequestTrace::toMap).toList());
+        return stats;
+    }
+
+    /**
+     * The shape of a statement: whitespace collapsed, string and number literals and lists of
+     * parameters folded, so {@code in (?, ?, ?)} and {@code in (?, ?)} count as one query.
+     */
+    static String normalize(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return PARAMETER_LIST.matcher(shape).replaceAll("(?, ...)");
+    }
+
+    private void reportRepeated(String endpoint, QueryShape shape, int repeats) {
+        String key = endpoint + '\n' + shape.sql;
+        RepeatedQuery repeated = repeatedQueries.get(key);
+        if (repeated == null) {
+            if (repeatedQueries.size() >= MAX_REPEATED) {
+                return;
+            }
+            RepeatedQuery created = new RepeatedQuery(endpoint, shape.sql);
+            repeated = repeatedQueries.putIfAbsent(key, created);
+            if (repeated == null) {
+                repeated = created;
+                logger.warn("Possible N+1 query in {}: {} executions of {}", endpoint, repeats, shape.sql);
+            }
+        }
+        repeated.requests.increment();
+        repeated.maxPerRequest.accumulateAndGet(repeats, Math::max);
+    }
+
+    private void reportSlow(QueryShape shape, long nanos, RequestQueries request) {
+        slowQueries.set((int) (slowQueryCount.getAndIncrement() % SLOW_SAMPLES),
+                new SlowQuery(Instant.now(), request != null ? request.request : "background", nanos, shape.sql));
+        long now = System.nanoTime();
+        long lastLogged = shape.slowLoggedAt.get();
+        if ((lastLogged == 0 || now - lastLogged >= SLOW_LOG_INTERVAL)
+                && shape.slowLoggedAt.compareAndSet(lastLogged, now)) {
+            logger.warn("Slow query ({} ms) in {}: {}", nanos / 1_000_000,
+                    request != null ? request.request : "background", shape.sql);
+        }
+    }
+
+    private static <T> List<T> newestFirst(AtomicReferenceArray<T> ring, long written) {
+        int slots = ring.length();
+        List<T> entries = new ArrayList<>();
+        for (long i = written - 1; i >= 0 && i >= written - slots; i--) {
+            T entry = ring.get((int) (i % slots));
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Statements of one query shape. Latencies go into fixed buckets, so percentiles are
+     * reported as the upper bound of the bucket they fall in.
+     */
+    static final class QueryShape {
+
+        private final String sql;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_MICROS.length + 1];
+        private final AtomicLong slowLoggedAt = new AtomicLong();
+
+        QueryShape(String sql) {
+            this.sql = sql;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long elapsed, long updatedRows, boolean failed) {
+            executions.increment();
+            if (failed) {
+                failures.increment();
+            }
+            rows.add(updatedRows);
+            nanos.add(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+            long micros = elapsed / 1_000;
+            int bucket = 0;
+            while (bucket < BUCKET_MICROS.length && micros > BUCKET_MICROS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+        }
+
+        Map<String, Object> toMap() {
+            long count = executions.sum();
+            long[] counts = new long[buckets.length];
+            long bucketed = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                bucketed += counts[i];
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("sql", sql);
+            stats.put("executions", count);
+            stats.put("failures", failures.sum());
+            stats.put("rows", rows.sum());
+            stats.put("totalMillis", millis(nanos.sum()));
+            stats.put("avgMillis", count == 0 ? 0 : millis(nanos.sum() / count));
+            stats.put("p50Millis", percentile(counts, bucketed, 0.50));
+            stats.put("p95Millis", percentile(counts, bucketed, 0.95));
+            stats.put("p99Millis", percentile(counts, bucketed, 0.99));
+            stats.put("maxMillis", millis(maxNanos.get()));
+            return stats;
+        }
+
+        private double percentile(long[] counts, long total, double percentile) {
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_MICROS.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return BUCKET_MICROS[i] / 1_000.0;
+                }
+            }
+            return millis(maxNanos.get());
+        }
+    }
+
+    private static final class RequestQueries {
+
+        private final String request;
+        private final long startedAt;
+        private final Map<QueryShape, int[]> executionsByShape = new IdentityHashMap<>();
+        private int statements;
+        private long rows;
+        private long sqlNanos;
+
+        RequestQueries(String request, long startedAt) {
+            this.request = request;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private static final class RepeatedQuery {
+
+        private final String endpoint;
+        private final String sql;
+        private final LongAdder requests = new LongAdder();
+        private final AtomicLong maxPerRequest = new AtomicLong();
+
+        RepeatedQuery(String endpoint, String sql) {
+            this.endpoint = endpoint;
+            this.sql = sql;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("endpoint", endpoint);
+            stats.put("sql", sql);
+            stats.put("requests", requests.sum());
+            stats.put("maxPerRequest", maxPerRequest.get());
+            return stats;
+        }
+    }
+
+    private record RequestTrace(Instant at, String endpoint, int status, int statements, long rows,
+                                long sqlNanos, long nanos, String mostRepeatedSql, int mostRepeatedCount) {
+
+        Map<String, Object> toMap() {
+            Map<String, Object> trace = new LinkedHashMap<>();
+            trace.put("at", at.toString());
+            trace.put("endpoint", endpoint);
+            trace.put("status", status);
+            trace.put("statements", statements);
+            trace.put("rows", rows);
+            trace.put("sqlMillis", millis(sqlNanos));
+            trace.put("millis", millis(nanos));
+            if (mostRepeatedSql != null) {
+                trace.put("mostRepeated", mostRepeatedSql);
+                trace.put("mostRepeatedCount", mostRepeatedCount);
+            }
+            return trace;
+        }
+    }
+
+    private record SlowQuery(Instant at, String request, long nanos, String sql) {
+
+        Map<String, Object> toMap() {
+            Map<String, Object> sample = new LinkedHashMap<>();
+            sample.put("at", at.toString());
+            sample.put("request", request);
+            sample.put("millis", millis(nanos));
+            sample.put("sql", sql);
+            return sample;
+        }
+    }
+}
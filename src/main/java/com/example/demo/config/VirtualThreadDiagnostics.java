@@ -0,0 +1,126 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, which happens when they
+ * block inside a {@code synchronized} block or method (our code has none, but JDBC drivers
+ * and other libraries do). A pinned thread blocks a carrier, and with one carrier per core
+ * a few of them stall every request. Only active in the virtual-thread mode
+ * ({@code spring.threads.virtual.enabled=true} on Java 21).
+ *
+ * Listens to JFR's {@code jdk.VirtualThreadPinned} events, counts them per blocking call site
+ * and logs each new site once with its stack.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadDiagnostics {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_SITES = 100;
+    private static final int LOGGED_FRAMES = 12;
+
+    @Value("${diagnostics.virtual-threads.pinned-threshold-ms:20}")
+    private long thresholdMillis;
+
+    private RecordingStream recording;
+
+    private final Map<String, LongAdder> pinnedBySite = new ConcurrentHashMap<>();
+    private final LongAdder pinned = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final AtomicLong maxPinnedNanos = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::record);
+        recording.startAsync();
+        logger.info("Reporting virtual threads pinned for more than {} ms", thresholdMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        recording.close();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("thresholdMillis", thresholdMillis);
+        stats.put("pinned", pinned.sum());
+        stats.put("pinnedMillis", pinnedNanos.sum() / 1_000_000.0);
+        stats.put("maxPinnedMillis", maxPinnedNanos.get() / 1_000_000.0);
+        Map<String, Long> sites = new LinkedHashMap<>();
+        pinnedBySite.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(site -> sites.put(site.getKey(), site.getValue().sum()));
+        stats.put("sites", sites);
+        return stats;
+    }
+
+    private void record(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        pinned.increment();
+        pinnedNanos.add(nanos);
+        maxPinnedNanos.accumulateAndGet(nanos, Math::max);
+
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String site = callSite(frames);
+        LongAdder count = pinnedBySite.get(site);
+        if (count == null && pinnedBySite.size() < MAX_SITES) {
+            count = pinnedBySite.computeIfAbsent(site, key -> new LongAdder());
+            logger.warn("Virtual thread pinned for {} ms at {}:{}", nanos / 1_000_000, site,
+                    format(event.getStackTrace()));
+        }
+        if (count != null) {
+            count.increment();
+        }
+    }
+
+    /**
+     * The first frame outside the JDK: the code that blocked while holding a monitor.
+     */
+    private static String callSite(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0).getMethod().getType().getName();
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        StringBuilder trace = new StringBuilder();
+        if (stackTrace != null) {
+            List<RecordedFrame> frames = stackTrace.getFrames();
+            for (int i = 0; i < frames.size() && i < LOGGED_FRAMES; i++) {
+                RecordedFrame frame = frames.get(i);
+                trace.append("\n\tat ").append(frame.getMethod().getType().getName()).append('.')
+                        .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+            }
+        }
+        return trace.toString();
+    }
+}
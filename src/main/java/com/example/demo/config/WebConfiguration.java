@@ -1,5 +1,8 @@
 package com.example.demo.config;
 
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,15 +14,30 @@ import org.springframework.lang.NonNull;
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
 
+	@Value("${upload.dir:src/main/resources/static/product-images/}")
+	private String uploadDir;
+
+	@Value("${image.serving.enabled:true}")
+	private boolean imageServingEnabled;
+
 	@Override
 	public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
 		// Handle static resources but exclude API paths
 		registry.addResourceHandler("/static/**")
 				.addResourceLocations("classpath:/static/");
 		
-		// Handle product images
-		registry.addResourceHandler("/product-images/**")
-				.addResourceLocations("classpath:/static/product-images/");
+		// Product images are served by ImageController unless it is switched off
+		if (!imageServingEnabled) {
+			registry.addResourceHandler("/product-images/**")
+					.addResourceLocations(directoryLocation(uploadDir), "classpath:/static/product-images/");
+			registry.addResourceHandler("/uploads/**")
+					.addResourceLocations(directoryLocation("uploads"));
+		}
+	}
+
+	private static String directoryLocation(String directory) {
+		String location = Paths.get(directory).toAbsolutePath().normalize().toUri().toString();
+		return location.endsWith("/") ? location : location + "/";
 	}
 
 	@Bean
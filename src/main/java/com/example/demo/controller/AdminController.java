@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -19,10 +20,9 @@ import com.example.demo.entity.Product;
 import com.example.demo.entity.ProductForm;
 import com.example.demo.repository.AccountRepository;
 import com.example.demo.repository.ProductRepository;
+import com.example.demo.service.ImageStore;
+import com.example.demo.service.ImageVariantService;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.*;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -52,7 +52,12 @@ public class AdminController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    private static final String UPLOAD_DIR = "uploads/";
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
 
     // GET: Show Login Page
     @GetMapping("/login")
@@ -149,8 +154,10 @@ public class AdminController {
         return "product";
     }
 
-    // POST: Save product
+    // POST: Save product. Runs without the class transaction so the upload is streamed to
+    // the image store before any database connection is taken.
     @PostMapping("/product")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String productSave(Model model,
                               @ModelAttribute("productForm") @Validated ProductForm productForm,
                               BindingResult result,
@@ -161,11 +168,14 @@ public class AdminController {
         }
 
         try {
-            Product product = new Product();
+            Product product;
 
             if (productForm.isNewProduct()) {
+                product = new Product();
                 product.setCode(generateProductCode());
             } else {
+                // Update the stored pet so its version and checkout hold are kept
+                product = productRepository.findById(productForm.getCode()).orElseGet(Product::new);
                 product.setCode(productForm.getCode());
             }
 
@@ -181,17 +191,20 @@ public class AdminController {
 
             MultipartFile fileData = productForm.getFileData();
             if (fileData != null && !fileData.isEmpty()) {
-                String fileName = saveFile(fileData);
-                product.setImagePath("/" + UPLOAD_DIR + fileName);
-            } else if (!productForm.isNewProduct()) {
-                // Preserve existing imagePath if no new file uploaded
-                Product existingProduct = productRepository.findById(productForm.getCode()).orElse(null);
-                if (existingProduct != null) {
-                    product.setImagePath(existingProduct.getImagePath());
+                String previousImagePath = product.getImagePath();
+                try (ImageStore.StagedImage image = imageStore.stage(fileData)) {
+                    product.setImagePath(image.getPath());
+                    productRepository.save(product);
+                    imageStore.publish(image);
                 }
+                imageVariantService.requestVariants(product.getImagePath());
+                // Images are shared by content, so only drop the old one once nothing uses it
+                if (previousImagePath != null && !productRepository.existsByImagePath(previousImagePath)) {
+                    imageStore.delete(previousImagePath);
+                }
+            } else {
+                productRepository.save(product);
             }
-
-            productRepository.save(product);
             redirectAttributes.addFlashAttribute("successMessage", "Product saved successfully!");
             return "redirect:/productList";
         } catch (Exception e) {
@@ -212,27 +225,6 @@ public class AdminController {
         return "redirect:/productList";
     }
 
-    private String saveFile(MultipartFile file) throws IOException {
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null) {
-            originalFilename = "unknown_" + System.currentTimeMillis();
-        }
-        // Optionally, generate a unique filename to avoid collisions
-        String filename = System.currentTimeMillis() + "_" + originalFilename;
-
-        Path uploadPath = Paths.get(UPLOAD_DIR);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
-        try (InputStream inputStream = file.getInputStream()) {
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-        }
-
-        return filename;
-    }
-
     private String generateProductCode() {
         Random random = new Random();
         String code;
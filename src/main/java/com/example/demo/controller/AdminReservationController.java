@@ -1,27 +1,68 @@
 package com.example.demo.controller;
 
-import com.example.demo.entity.Reservation;
-import com.example.demo.service.ReservationService;
+import com.example.demo.dao.ReservationDAO;
+import com.example.demo.model.ReservationFilter;
+import com.example.demo.model.ReservationSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/admin/reservations")
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminReservationController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AdminReservationController.class);
+
     @Autowired
-    private ReservationService reservationService;
+    private ReservationDAO reservationDAO;
 
+    /**
+     * One page of reservations, in the same shape as {@code /api/admin/reservations?page=}.
+     * Always paged: the whole table, with every reservation's item details, is never loaded.
+     */
     @GetMapping
-    public ResponseEntity<List<Reservation>> getAllReservations() {
-        List<Reservation> reservations = reservationService.getAllReservations();
-        return ResponseEntity.ok(reservations);
+    public ResponseEntity<?> getAllReservations(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "" + ReservationController.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(value = "status", required = false) List<String> statuses) {
+        try {
+            ReservationFilter filter = new ReservationFilter();
+            filter.setStatuses(statuses);
+
+            int pageSize = Math.min(Math.max(size, 1), ReservationController.MAX_PAGE_SIZE);
+            Page<ReservationSummary> reservationPage = reservationDAO.queryReservations(
+                    PageRequest.of(Math.max(page, 0), pageSize), filter);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", reservationPage.getContent());
+            response.put("currentPage", reservationPage.getNumber());
+            response.put("totalItems", reservationPage.getTotalElements());
+            response.put("totalPages", reservationPage.getTotalPages());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid request");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            logger.error("Error fetching reservations: {}", e.getMessage(), e);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to fetch reservations");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
     }
-} 
\ No newline at end of file
+}
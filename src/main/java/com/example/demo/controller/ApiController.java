@@ -1,11 +1,26 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.SqlMonitor;
+import com.example.demo.config.VirtualThreadDiagnostics;
+import com.example.demo.dao.ProductCatalogIndex;
 import com.example.demo.dao.ProductDAO;
+import com.example.demo.dao.ProductJsonCache;
 import com.example.demo.entity.Account;
+import com.example.demo.model.AccountInfo;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.Reservation;
+import com.example.demo.model.CursorPage;
+import com.example.demo.model.FacetedPage;
+import com.example.demo.model.ProductFilter;
+import com.example.demo.model.ProductInfo;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.service.UserDetailsServiceImpl;
+import com.example.demo.service.AccountCache;
+import com.example.demo.service.BoundedPasswordEncoder;
+import com.example.demo.service.CatalogResponseCache;
+import com.example.demo.service.CartWriteBehind;
+import com.example.demo.service.ImageStore;
+import com.example.demo.service.ImageVariantService;
 import com.example.demo.service.ReservationService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -18,25 +33,20 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Random;
-import java.nio.file.StandardCopyOption;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
@@ -45,7 +55,6 @@ public class ApiController {
 
     private static final Logger logger = LoggerFactory.getLogger(ApiController.class);
 
-    private static final String UPLOAD_DIR = "src/main/resources/static/product-images/";
 
     @Value("${admin.secret.key}")
     private String adminSecretKey;
@@ -57,7 +66,10 @@ public class ApiController {
     private UserDetailsServiceImpl userDetailsService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private AccountCache accountCache;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
 
     @Autowired
     private ProductRepository productRepository;
@@ -65,9 +77,38 @@ public class ApiController {
     @Autowired
     private ProductDAO productDAO;
 
+    @Autowired
+    private ProductCatalogIndex catalogIndex;
+
+    @Autowired
+    private ProductJsonCache productJsonCache;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
     @Autowired
     private ReservationService reservationService;
 
+    @Autowired
+    private CartWriteBehind cartWriteBehind;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private SqlMonitor sqlMonitor;
+
+    // Only present in the virtual-thread mode
+    @Autowired(required = false)
+    private VirtualThreadDiagnostics virtualThreadDiagnostics;
+
+    // What getProducts binds, the only parameters its cached responses are keyed by
+    private static final String[] PRODUCT_PARAMETERS = {"page", "size", "searchTerm", "cursor", "includeTotal",
+            "type", "breed", "gender", "status", "minPrice", "maxPrice", "facets"};
+
     private static final String ADMIN_EMAIL = "admin@petmart.com";
     private static final String ADMIN_PASSWORD = "admin123";
 
@@ -116,6 +157,9 @@ public class ApiController {
             userDetailsService.save(newAccount);
 
             return ResponseEntity.ok("User registered successfully");
+        } catch (RejectedExecutionException e) {
+            // Password hashing is saturated, answered with 503 by GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             logger.error("Registration error: ", e);
             return ResponseEntity.badRequest().body("Registration failed: " + e.getMessage());
@@ -147,21 +191,18 @@ public class ApiController {
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            Account account = userDetailsService.findByEmail(email);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("email", account.getEmail());
-            response.put("firstName", account.getFirstName());
-            response.put("lastName", account.getLastName());
-            response.put("role", account.getRole());
+            AccountInfo account = userDetailsService.findAccountInfo(email);
 
             logger.info("User authenticated successfully: {}", email);
             logger.debug("Authenticated user authorities: {}", authentication.getAuthorities());
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(account);
         } catch (UsernameNotFoundException e) {
             logger.warn("User not found during authentication: {}", email);
             return ResponseEntity.badRequest().body("User not found");
+        } catch (RejectedExecutionException e) {
+            logger.warn("Sign-in of {} shed, password hashing is saturated", email);
+            throw e;
         } catch (Exception e) {
             logger.error("Authentication error for user: {}", email, e);
             Map<String, String> error = new HashMap<>();
@@ -182,17 +223,11 @@ public class ApiController {
             }
 
             String email = authentication.getName();
-            Account account = userDetailsService.findByEmail(email);
-
-        Map<String, Object> response = new HashMap<>();
-            response.put("email", account.getEmail());
-            response.put("firstName", account.getFirstName());
-            response.put("lastName", account.getLastName());
-            response.put("role", account.getRole());
+            AccountInfo account = userDetailsService.findAccountInfo(email);
 
             logger.debug("Found user {} with role {}", email, account.getRole());
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(account);
         } catch (UsernameNotFoundException e) {
             logger.warn("Authenticated user not found in database.");
             return ResponseEntity.ok(null);
@@ -244,12 +279,7 @@ public class ApiController {
 
             String userEmail = authentication.getName();
 
-            List<Reservation> userReservations = reservationService.getReservationsByCustomerEmail(userEmail);
-            
-            // Filter out ACCEPTED and REJECTED reservations
-            List<Reservation> activeReservations = userReservations.stream()
-                .filter(reservation -> reservation.getStatus() == Reservation.ReservationStatus.PENDING)
-                .collect(Collectors.toList());
+            List<Reservation> activeReservations = reservationService.getActiveReservationsByCustomerEmail(userEmail);
 
             logger.debug("Found {} active reservations for user {}", activeReservations.size(), userEmail);
 
@@ -303,14 +333,9 @@ public class ApiController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String userEmail = authentication.getName();
 
-            List<Reservation> userReservations = reservationService.getReservationsByCustomerEmail(userEmail);
-            
-            // Filter and delete only ACCEPTED and REJECTED reservations
-            userReservations.stream()
-                .filter(reservation -> 
-                    reservation.getStatus() == Reservation.ReservationStatus.ACCEPTED || 
-                    reservation.getStatus() == Reservation.ReservationStatus.REJECTED)
-                .forEach(reservation -> reservationService.deleteReservation(reservation.getId()));
+            // Delete only ACCEPTED and REJECTED reservations
+            int deleted = reservationService.clearCompletedReservations(userEmail);
+            logger.debug("Cleared {} completed reservations for user {}", deleted, userEmail);
 
             return ResponseEntity.ok().body("Completed reservations cleared successfully");
         } catch (Exception e) {
@@ -326,24 +351,67 @@ public class ApiController {
     public ResponseEntity<?> getProducts(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "100") int size,
-            @RequestParam(value = "searchTerm", defaultValue = "") String searchTerm) {
+            @RequestParam(value = "searchTerm", defaultValue = "") String searchTerm,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal,
+            @RequestParam(value = "type", required = false) List<String> types,
+            @RequestParam(value = "breed", required = false) List<String> breeds,
+            @RequestParam(value = "gender", required = false) List<String> genders,
+            @RequestParam(value = "status", required = false) List<String> statuses,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "facets", defaultValue = "false") boolean withFacets,
+            WebRequest webRequest) {
         try {
-            Pageable pageable = PageRequest.of(page, size, Sort.by("createDate").descending());
-            Page<?> productPage;
-
-            if (searchTerm == null || searchTerm.isEmpty()) {
-                productPage = productDAO.queryProducts(pageable);
-        } else {
-                productPage = productDAO.queryProducts(pageable, searchTerm);
+            ProductFilter filter = new ProductFilter();
+            filter.setTypes(types);
+            filter.setBreeds(breeds);
+            filter.setGenders(genders);
+            filter.setStatuses(statuses);
+            filter.setMinPrice(minPrice);
+            filter.setMaxPrice(maxPrice);
+
+            // Keyset mode: any cursor parameter, an empty one asks for the first page
+            if (cursor != null) {
+                if (!searchTerm.isEmpty()) {
+                    return ResponseEntity.badRequest().body("Cursor pagination is not supported together with searchTerm");
+                }
+                return catalogResponseCache.respond(webRequest, CatalogResponseCache.key("/products", webRequest, PRODUCT_PARAMETERS), () -> {
+                    CursorPage<ProductInfo> slice = productDAO.scrollProducts(cursor, size, filter);
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("items", productJsonCache.toJson(slice.getItems()));
+                    response.put("nextCursor", slice.getNextCursor());
+                    response.put("hasMore", slice.isHasMore());
+                    if (includeTotal) {
+                        response.put("totalItems", filter.isEmpty()
+                                ? productDAO.countProducts()
+                                : productDAO.queryProducts(PageRequest.of(0, 1), null, filter, false).getTotalElements());
+                    }
+                    return response;
+                });
             }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("items", productPage.getContent());
-            response.put("currentPage", productPage.getNumber());
-            response.put("totalItems", productPage.getTotalElements());
-            response.put("totalPages", productPage.getTotalPages());
-
-            return ResponseEntity.ok(response);
+            return catalogResponseCache.respond(webRequest, CatalogResponseCache.key("/products", webRequest, PRODUCT_PARAMETERS), () -> {
+                Pageable pageable = PageRequest.of(page, size, Sort.by("createDate").descending());
+                FacetedPage<ProductInfo> productPage = productDAO.queryProducts(pageable, searchTerm, filter, withFacets);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("items", productJsonCache.toJson(productPage.getContent()));
+                response.put("currentPage", productPage.getNumber());
+                response.put("totalItems", productPage.getTotalElements());
+                response.put("totalPages", productPage.getTotalPages());
+                if (withFacets) {
+                    response.put("facets", productPage.getFacets());
+                }
+                return response;
+            });
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid product listing request: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid request");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             logger.error("Error fetching products: {}", e.getMessage(), e);
             Map<String, String> error = new HashMap<>();
@@ -353,6 +421,77 @@ public class ApiController {
         }
     }
 
+    @GetMapping("/admin/catalog/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> getCatalogStats() {
+        return ResponseEntity.ok(catalogIndex.getStats());
+    }
+
+    @GetMapping("/admin/cart/write-behind/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> getCartWriteBehindStats() {
+        return ResponseEntity.ok(cartWriteBehind.getStats());
+    }
+
+    @GetMapping("/admin/accounts/cache/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> getAccountCacheStats() {
+        return ResponseEntity.ok(accountCache.getStats());
+    }
+
+    @GetMapping("/admin/security/password-hashing/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.getStats());
+    }
+
+    @GetMapping("/admin/threads/pinning/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> getVirtualThreadPinningStats() {
+        if (virtualThreadDiagnostics == null) {
+            Map<String, Object> disabled = new HashMap<>();
+            disabled.put("enabled", false);
+            return ResponseEntity.ok(disabled);
+        }
+        return ResponseEntity.ok(virtualThreadDiagnostics.getStats());
+    }
+
+    @GetMapping("/admin/sql/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> getSqlStats() {
+        return ResponseEntity.ok(sqlMonitor.getStats());
+    }
+
+    @GetMapping("/admin/images/variants/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> getImageVariantStats() {
+        return ResponseEntity.ok(imageVariantService.getStats());
+    }
+
+    @GetMapping("/admin/catalog/response-cache/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> getCatalogResponseCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(catalogResponseCache.getStats());
+        stats.put("productFragments", productJsonCache.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @PostMapping("/admin/catalog/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> rebuildCatalogIndex() {
+        try {
+            catalogIndex.rebuild();
+            catalogResponseCache.invalidate();
+            return ResponseEntity.ok(catalogIndex.getStats());
+        } catch (Exception e) {
+            logger.error("Failed to rebuild catalog index: {}", e.getMessage(), e);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to rebuild catalog index");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
     @PostMapping("/admin/product")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<?> addProduct(
@@ -385,20 +524,16 @@ public class ApiController {
             product.setCreateDate(new Date());
 
             if (fileData != null && !fileData.isEmpty()) {
-                Path uploadPath = Paths.get(UPLOAD_DIR);
-                if (!Files.exists(uploadPath)) {
-                    Files.createDirectories(uploadPath);
+                try (ImageStore.StagedImage image = imageStore.stage(fileData)) {
+                    product.setImagePath(image.getPath());
+                    productRepository.save(product);
+                    imageStore.publish(image);
                 }
-
-                String fileName = product.getCode() + "_" + System.currentTimeMillis() + getFileExtension(fileData.getOriginalFilename());
-                Path filePath = uploadPath.resolve(fileName);
-                Files.copy(fileData.getInputStream(), filePath);
-
-                product.setImagePath("/product-images/" + fileName);
+                imageVariantService.requestVariants(product.getImagePath());
+            } else {
+                productRepository.save(product);
             }
 
-            productRepository.save(product);
-
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Product added successfully");
             response.put("product", product);
@@ -445,26 +580,21 @@ public class ApiController {
             // Preserve createDate
 
             if (fileData != null && !fileData.isEmpty()) {
-                // Delete old image if exists
-                if (existingProduct.getImagePath() != null) {
-                    try {
-                        Path oldImagePath = Paths.get(UPLOAD_DIR, existingProduct.getImagePath().substring(existingProduct.getImagePath().lastIndexOf("/") + 1));
-                        Files.deleteIfExists(oldImagePath);
-                    } catch (IOException e) {
-                        logger.warn("Failed to delete old product image for code {}: {}", code, e.getMessage());
-                    }
+                String oldImagePath = existingProduct.getImagePath();
+                try (ImageStore.StagedImage image = imageStore.stage(fileData)) {
+                    existingProduct.setImagePath(image.getPath());
+                    productRepository.save(existingProduct);
+                    imageStore.publish(image);
+                }
+                imageVariantService.requestVariants(existingProduct.getImagePath());
+                // Images are shared by content, so only drop the old one once nothing uses it
+                if (oldImagePath != null && !productRepository.existsByImagePath(oldImagePath)) {
+                    imageStore.delete(oldImagePath);
                 }
-                // Save new image
-                String fileName = saveFile(fileData, code);
-                existingProduct.setImagePath("/product-images/" + fileName);
-            } else if (existingProduct.getImagePath() == null) {
-                 // If no new file and no existing image, maybe set a default or handle as error?
-                 // For now, just ensure imagePath is not set if no file is provided and no old one exists
-                 existingProduct.setImagePath(null); // Or a default placeholder path
+            } else {
+                productRepository.save(existingProduct);
             }
 
-            productRepository.save(existingProduct);
-
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Product updated successfully");
             response.put("product", existingProduct);
@@ -486,28 +616,6 @@ public class ApiController {
         }
     }
 
-    private String saveFile(MultipartFile file, String productCode) throws IOException {
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null) {
-            originalFilename = productCode + "_unknown";
-        }
-        // Generate a unique filename using product code and timestamp
-        String fileExtension = getFileExtension(originalFilename);
-        String filename = productCode + "_" + System.currentTimeMillis() + (fileExtension.isEmpty() ? "" : "." + fileExtension);
-
-        Path uploadPath = Paths.get(UPLOAD_DIR);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
-        try (InputStream inputStream = file.getInputStream()) {
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-        }
-
-        return filename;
-    }
-
     private String generateProductCode() {
         Random random = new Random();
         String code;
@@ -517,12 +625,6 @@ public class ApiController {
         return code;
     }
 
-    private String getFileExtension(String fileName) {
-        if (fileName == null) return "";
-        int lastDotIndex = fileName.lastIndexOf(".");
-        return lastDotIndex == -1 ? "" : fileName.substring(lastDotIndex);
-    }
-
     @PostMapping("/signout")
     public ResponseEntity<?> logout(HttpServletRequest request) {
         // Invalidate the session
@@ -539,18 +641,12 @@ public class ApiController {
             Product product = productRepository.findById(code)
                     .orElseThrow(() -> new RuntimeException("Product not found with code: " + code));
 
-            // Delete the image file if it exists
-            if (product.getImagePath() != null) {
-                try {
-                    String fileName = product.getImagePath().substring(product.getImagePath().lastIndexOf("/") + 1);
-                    Path filePath = Paths.get(UPLOAD_DIR, fileName);
-                    Files.deleteIfExists(filePath);
-                } catch (IOException e) {
-                    logger.warn("Failed to delete product image for code {}: {}", code, e.getMessage());
-                }
-            }
-
             productRepository.deleteById(code);
+
+            // Delete the image file unless another product shows the same image
+            if (product.getImagePath() != null && !productRepository.existsByImagePath(product.getImagePath())) {
+                imageStore.delete(product.getImagePath());
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Product deleted successfully");
@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.CartInfo;
+import com.example.demo.model.CartOperation;
 import com.example.demo.service.CartService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -48,8 +50,7 @@ public class CartController {
             String productCode = (String) request.get("code");
             int quantity = (int) request.get("quantity");
 
-            cartService.addProductToCart(productCode, quantity, httpRequest);
-            CartInfo cartInfo = cartService.getCartInSession(httpRequest);
+            CartInfo cartInfo = cartService.addProductToCart(productCode, quantity, httpRequest);
             return ResponseEntity.ok(cartInfo);
         } catch (Exception e) {
             logger.error("Error adding to cart: {}", e.getMessage(), e);
@@ -68,8 +69,7 @@ public class CartController {
             String productCode = (String) request.get("code");
             int quantity = (int) request.get("quantity");
 
-            cartService.updateProductQuantity(productCode, quantity, httpRequest);
-            CartInfo cartInfo = cartService.getCartInSession(httpRequest);
+            CartInfo cartInfo = cartService.updateProductQuantity(productCode, quantity, httpRequest);
             return ResponseEntity.ok(cartInfo);
         } catch (Exception e) {
             logger.error("Error updating cart: {}", e.getMessage(), e);
@@ -102,8 +102,7 @@ public class CartController {
                 return ResponseEntity.badRequest().body(error);
             }
 
-            cartService.removeProduct(productCode, httpRequest);
-            cartInfo = cartService.getCartInSession(httpRequest);
+            cartInfo = cartService.removeProduct(productCode, httpRequest);
             return ResponseEntity.ok(cartInfo);
         } catch (Exception e) {
             logger.error("Error removing from cart: {}", e.getMessage(), e);
@@ -114,6 +113,30 @@ public class CartController {
         }
     }
 
+    /**
+     * Apply a list of add/update/remove/clear operations in order, all or nothing.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchUpdateCart(
+            @RequestBody List<CartOperation> operations,
+            HttpServletRequest httpRequest) {
+        try {
+            CartInfo cartInfo = cartService.applyOperations(operations, httpRequest);
+            return ResponseEntity.ok(cartInfo);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid cart operations");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            logger.error("Error applying cart operations: {}", e.getMessage(), e);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to update cart");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
     @DeleteMapping
     public ResponseEntity<?> clearCart(HttpServletRequest request) {
         try {
@@ -0,0 +1,313 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.LocalImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Serves product images with strong ETags, long-lived caching, conditional 304 responses and
+ * single byte ranges. Content-addressed images (named by their SHA-256, see
+ * {@link LocalImageStore}) never change, so their ETag is the name and they are cached as
+ * immutable; other images get an ETag hashed from their content once and a day's max-age.
+ *
+ * File bodies go out through Tomcat's sendfile when the connector supports it, otherwise
+ * through {@link FileChannel#transferTo}. Set {@code image.serving.enabled=false} to fall
+ * back to the plain resource handlers in {@code WebConfiguration}.
+ */
+@Controller
+@ConditionalOnProperty(name = "image.serving.enabled", havingValue = "true", matchIfMissing = true)
+public class ImageController {
+
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    static final String REVALIDATE = "public, max-age=86400";
+
+    private static final String PRODUCT_IMAGES = "/product-images/";
+    private static final String UPLOADS = "/uploads/";
+    private static final Path UPLOADS_DIR = Paths.get("uploads").toAbsolutePath().normalize();
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}(-[a-z0-9]+)?\\.[a-z0-9]{1,5}");
+
+    // Tomcat skips sendfile for small files as well; a plain copy is cheaper there
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final int MAX_CACHED_ETAGS = 10_000;
+
+    @Autowired
+    private LocalImageStore imageStore;
+
+    private final Map<String, ImageFile> hashedFiles = new ConcurrentHashMap<>();
+
+    @GetMapping({PRODUCT_IMAGES + "**", UPLOADS + "**"})
+    public void serveImage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = UriUtils.decode(request.getRequestURI().substring(request.getContextPath().length()),
+                StandardCharsets.UTF_8);
+        ImageFile image = resolve(path);
+        if (image == null) {
+            // No error dispatch: the error page is not open to anonymous image requests
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String contentType = request.getServletContext().getMimeType(image.name());
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        response.setHeader(HttpHeaders.ETAG, image.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, image.immutable() ? IMMUTABLE : REVALIDATE);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, image.lastModified());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, image)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = image.size() - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, image)) {
+            long[] bounds = parseRange(range, image.size());
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + image.size());
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + image.size());
+            }
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (image.path() != null && length >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", image.path().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+        } else if (image.path() != null) {
+            try (FileChannel file = FileChannel.open(image.path(), StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                while (position <= end) {
+                    long sent = file.transferTo(position, end - position + 1, out);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                }
+            }
+        } else {
+            try (InputStream in = image.resource().getInputStream()) {
+                in.skipNBytes(start);
+                copy(in, response.getOutputStream(), length);
+            }
+        }
+    }
+
+    /**
+     * The image behind a request path: uploads from the image store (or the legacy uploads
+     * directory), then the images bundled on the classpath.
+     */
+    private ImageFile resolve(String requestPath) throws IOException {
+        String name;
+        Path file;
+        if (requestPath.startsWith(PRODUCT_IMAGES)) {
+            name = requestPath.substring(PRODUCT_IMAGES.length());
+            file = imageStore.resolve(requestPath);
+        } else if (requestPath.startsWith(UPLOADS)) {
+            name = requestPath.substring(UPLOADS.length());
+            file = safeName(name) ? UPLOADS_DIR.resolve(name) : null;
+        } else {
+            return null;
+        }
+        if (!safeName(name)) {
+            return null;
+        }
+        if (file != null && Files.isRegularFile(file)) {
+            return describe(name, file, null, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+        if (requestPath.startsWith(PRODUCT_IMAGES)) {
+            ClassPathResource resource = new ClassPathResource("static/product-images/" + name);
+            if (resource.exists()) {
+                Path bundled = resource.isFile() ? resource.getFile().toPath() : null;
+                return describe(name, bundled, resource, resource.contentLength(), resource.lastModified());
+            }
+        }
+        return null;
+    }
+
+    private ImageFile describe(String name, Path path, ClassPathResource resource, long size, long lastModified)
+            throws IOException {
+        if (CONTENT_ADDRESSED.matcher(name).matches()) {
+            String etag = "\"" + name.substring(0, name.lastIndexOf('.')) + "\"";
+            return new ImageFile(name, path, resource, size, lastModified, etag, true);
+        }
+        // Other names may be overwritten: hash the content, again only when the file changed
+        String key = path != null ? path.toString() : "classpath:" + name;
+        ImageFile cached = hashedFiles.get(key);
+        if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+            return cached;
+        }
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(
+                path != null ? Files.newInputStream(path) : resource.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String etag = "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+        ImageFile image = new ImageFile(name, path, resource, size, lastModified, etag, false);
+        if (hashedFiles.size() >= MAX_CACHED_ETAGS) {
+            hashedFiles.clear();
+        }
+        hashedFiles.put(key, image);
+        return image;
+    }
+
+    private static boolean notModified(HttpServletRequest request, ImageFile image) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return etagMatches(ifNoneMatch, image.etag(), true);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && image.lastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-Range: a range is only served for the representation the client already has part of.
+     */
+    private static boolean rangeApplies(HttpServletRequest request, ImageFile image) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etagMatches(ifRange, image.etag(), false);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date != -1 && image.lastModified() / 1000 == date / 1000;
+    }
+
+    static boolean etagMatches(String header, String etag, boolean weak) {
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (weak && candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code {start, end}} (inclusive) for one satisfiable range, an empty array to
+     *         ignore the header (malformed or several ranges: the whole image is sent), or
+     *         {@code null} if the range cannot be satisfied
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') != -1) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                String last = spec.substring(dash + 1);
+                if (last.isEmpty()) {
+                    end = size - 1;
+                } else {
+                    end = Long.parseLong(last);
+                    if (end < start) {
+                        return new long[0];
+                    }
+                    end = Math.min(end, size - 1);
+                }
+            }
+            return start >= size ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static boolean safeName(String name) {
+        return !name.isEmpty() && !name.startsWith(".") && name.indexOf('/') == -1 && name.indexOf('\\') == -1;
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record ImageFile(String name, Path path, ClassPathResource resource, long size, long lastModified,
+                             String etag, boolean immutable) {
+    }
+}
@@ -67,9 +67,8 @@ public class MainController {
             product = productRepository.findById(code).orElse(null);
         }
         if (product != null) {
-            CartInfo cartInfo = cartService.getCartInSession(request);
             ProductInfo productInfo = new ProductInfo(product);
-            cartInfo.addProduct(productInfo, 1);
+            cartService.updateCart(request, cartInfo -> cartInfo.addProduct(productInfo, 1));
         }
         return "redirect:/shoppingCart";
     }
@@ -82,9 +81,8 @@ public class MainController {
             product = productRepository.findById(code).orElse(null);
         }
         if (product != null) {
-            CartInfo cartInfo = cartService.getCartInSession(request);
             ProductInfo productInfo = new ProductInfo(product);
-            cartInfo.removeProduct(productInfo);
+            cartService.updateCart(request, cartInfo -> cartInfo.removeProduct(productInfo));
         }
         return "redirect:/shoppingCart";
     }
@@ -93,8 +91,7 @@ public class MainController {
     public String shoppingCartUpdateQty(HttpServletRequest request,
                                         Model model,
                                         @ModelAttribute("cartForm") CartInfo cartForm) {
-        CartInfo cartInfo = cartService.getCartInSession(request);
-        cartInfo.updateQuantity(cartForm);
+        cartService.updateCart(request, cartInfo -> cartInfo.updateQuantity(cartForm));
         return "redirect:/shoppingCart";
     }
 
@@ -129,8 +126,7 @@ public class MainController {
         }
 
         customer.setValid(true);
-        CartInfo cartInfo = cartService.getCartInSession(request);
-        cartInfo.setCustomerInfo(new CustomerInfo(customer));
+        cartService.updateCart(request, cartInfo -> cartInfo.setCustomerInfo(new CustomerInfo(customer)));
 
         return "redirect:/shoppingCartConfirmation";
     }
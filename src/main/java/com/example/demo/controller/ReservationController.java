@@ -1,18 +1,23 @@
 package com.example.demo.controller;
 
+import com.example.demo.dao.ReservationDAO;
 import com.example.demo.entity.Reservation;
-import com.example.demo.entity.Product;
+import com.example.demo.model.ReservationFilter;
+import com.example.demo.model.ReservationSummary;
 import com.example.demo.service.ReservationService;
-import com.example.demo.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,19 +28,51 @@ import java.util.Map;
 public class ReservationController {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationController.class);
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
 
     @Autowired
     private ReservationService reservationService;
 
     @Autowired
-    private ProductRepository productRepository;
+    private ReservationDAO reservationDAO;
 
+    /**
+     * One page of reservations for the admin dashboard, plus the per-status counts. Always
+     * paged, by default the first {@value #DEFAULT_PAGE_SIZE}.
+     */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getAllReservations() {
+    public ResponseEntity<?> getAllReservations(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(value = "status", required = false) List<String> statuses,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "customer", required = false) String customer) {
         try {
-            List<Reservation> reservations = reservationService.getAllReservations();
-            return ResponseEntity.ok(reservations);
+            ReservationFilter filter = new ReservationFilter();
+            filter.setStatuses(statuses);
+            filter.setFrom(from);
+            filter.setTo(to);
+            filter.setCustomer(customer);
+
+            int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+            Page<ReservationSummary> reservationPage = reservationDAO.queryReservations(
+                    PageRequest.of(Math.max(page, 0), pageSize), filter);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", reservationPage.getContent());
+            response.put("currentPage", reservationPage.getNumber());
+            response.put("totalItems", reservationPage.getTotalElements());
+            response.put("totalPages", reservationPage.getTotalPages());
+            response.put("statusCounts", reservationDAO.countByStatus());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid request");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             logger.error("Error fetching reservations: {}", e.getMessage(), e);
             Map<String, String> error = new HashMap<>();
@@ -59,45 +96,9 @@ public class ReservationController {
                 return ResponseEntity.badRequest().body("Status is required");
             }
 
-            logger.debug("Fetching reservation with ID: {}", id);
-            Reservation reservation = reservationService.getReservationById(id);
-            if (reservation == null) {
-                logger.warn("Reservation not found with ID: {}", id);
-                return ResponseEntity.notFound().build();
-            }
-
-            logger.info("Updating reservation status from {} to {} for reservation ID: {}", 
-                reservation.getStatus(), newStatus, id);
-            
-            // Update reservation status
-            reservation.setStatus(newStatus);
-            Reservation updatedReservation = reservationService.updateReservation(reservation);
+            Reservation updatedReservation = reservationService.updateReservationStatus(id, newStatus);
             logger.info("Successfully updated reservation status to: {}", updatedReservation.getStatus());
 
-            // Update product status based on reservation status
-            // Update ALL pets in reservedItemsDetails
-            String reservedItemsDetails = reservation.getReservedItemsDetails();
-            ObjectMapper objectMapper = new ObjectMapper();
-            try {
-                JsonNode items = objectMapper.readTree(reservedItemsDetails);
-                for (JsonNode item : items) {
-                    String productCode = item.get("productInfo").get("code").asText();
-                    Product pet = productRepository.findById(productCode).orElse(null);
-                    if (pet != null) {
-                        String oldProductStatus = pet.getStatus();
-                        if ("ACCEPTED".equalsIgnoreCase(newStatus)) {
-                            pet.setStatus("ADOPTED");
-                        } else if ("REJECTED".equalsIgnoreCase(newStatus)) {
-                            pet.setStatus("AVAILABLE");
-                        }
-                        Product updatedProduct = productRepository.save(pet);
-                        logger.info("Updated product status from {} to {} for product code: {}", oldProductStatus, updatedProduct.getStatus(), updatedProduct.getCode());
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("Error updating product statuses for reservation ID {}: {}", id, e.getMessage());
-            }
-
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Reservation status updated successfully");
             response.put("reservation", updatedReservation);
@@ -110,6 +111,12 @@ public class ReservationController {
             error.put("error", "Invalid status");
             error.put("message", e.getMessage());
             return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            logger.info("Reservation status conflict: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Pet no longer available");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (Exception e) {
             logger.error("Error updating reservation status for ID {}: {}", id, e.getMessage(), e);
             Map<String, String> error = new HashMap<>();
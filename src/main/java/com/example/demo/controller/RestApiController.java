@@ -8,13 +8,16 @@ import com.example.demo.model.CustomerInfo;
 import com.example.demo.model.ProductInfo;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.service.CartService;
+import com.example.demo.service.CatalogResponseCache;
 import com.example.demo.service.ReservationService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -40,21 +43,25 @@ public class RestApiController {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
     @Autowired
     private ReservationService reservationService;
 
     @GetMapping("/products/{code}")
-    public ResponseEntity<?> getProduct(@PathVariable String code) {
-        Product product = productRepository.findById(code).orElse(null);
-        if (product == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(new ProductInfo(product));
+    public ResponseEntity<?> getProduct(@PathVariable String code, WebRequest webRequest) throws Exception {
+        return catalogResponseCache.respond(webRequest, "/products/" + code, () -> {
+            Product product = productRepository.findById(code).orElse(null);
+            if (product == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return new ProductInfo(product);
+        });
     }
 
     @PostMapping("/reservations")
     @PreAuthorize("isAuthenticated()") // Ensure user is authenticated
-    @Transactional
     public ResponseEntity<?> createReservation(
             HttpServletRequest request,
             @Valid @RequestBody CustomerInfo customerInfo) {
@@ -66,7 +73,7 @@ public class RestApiController {
                 return ResponseEntity.badRequest().body("Cart is empty. Cannot create a reservation.");
             }
 
-            // Create reservation and clear cart in the same transaction
+            // Holds the pets; the cart is only cleared once the reservation is committed
             Reservation reservation = reservationService.createReservationFromCart(cartInfo, customerInfo);
             cartService.removeCartInSession(request);
 
@@ -75,6 +82,12 @@ public class RestApiController {
             response.put("reservation", reservation);
             return ResponseEntity.ok(response);
 
+        } catch (OptimisticLockingFailureException e) {
+            logger.info("Reservation conflict: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Pet no longer available");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (Exception e) {
             logger.error("Error creating reservation", e);
             return ResponseEntity.internalServerError().body("Error creating reservation: " + e.getMessage());
@@ -0,0 +1,19 @@
+package com.example.demo.dao;
+
+/**
+ * Published whenever an account row is inserted, updated or removed. Caches of account data
+ * consume it with {@code @TransactionalEventListener} to drop the account once the write
+ * is committed.
+ */
+public class AccountChangedEvent {
+
+    private final String email;
+
+    public AccountChangedEvent(String email) {
+        this.email = email;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Account;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns every account write into an {@link AccountChangedEvent},
+ * whether it went through {@code UserDetailsServiceImpl.save} or straight through the
+ * {@code AccountRepository}.
+ */
+public class AccountEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Account account) {
+        eventPublisher.publishEvent(new AccountChangedEvent(account.getEmail()));
+    }
+}
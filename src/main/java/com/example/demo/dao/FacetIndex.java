@@ -0,0 +1,249 @@
+package com.example.demo.dao;
+
+import com.example.demo.model.ProductFilter;
+import com.example.demo.model.ProductInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-value bitmaps over the catalog doc ids for pet type, breed, gender, status and price
+ * bucket. Filtering is a union of the selected values per dimension followed by a bitwise
+ * AND across dimensions; facet counts are tallied in a single pass over the matches.
+ *
+ * Shares its doc id space with the {@link TrigramIndex} of the same catalog state, which is
+ * compacted regularly, so plain {@link BitSet}s stay dense.
+ *
+ * Not thread-safe; {@link ProductCatalogIndex} guards it with its read/write lock.
+ */
+public class FacetIndex {
+
+    public static final String TYPE = "type";
+    public static final String BREED = "breed";
+    public static final String GENDER = "gender";
+    public static final String STATUS = "status";
+    public static final String PRICE = "price";
+
+    /** Upper bounds (exclusive) of the price buckets, the last bucket is open-ended. */
+    static final double[] PRICE_BOUNDS = {100, 250, 500, 1000, 2500};
+
+    private final Dimension type = new Dimension(TYPE);
+    private final Dimension breed = new Dimension(BREED);
+    private final Dimension gender = new Dimension(GENDER);
+    private final Dimension status = new Dimension(STATUS);
+    private final Dimension price = new Dimension(PRICE);
+    private final Dimension[] dimensions = {type, breed, gender, status, price};
+    private double[] prices = new double[1024];
+
+    public FacetIndex() {
+        for (int bucket = 0; bucket <= PRICE_BOUNDS.length; bucket++) {
+            price.valueId(priceLabel(bucket));
+        }
+    }
+
+    public void add(int docId, ProductInfo product) {
+        type.set(docId, product.getType());
+        breed.set(docId, product.getBreed());
+        gender.set(docId, product.getGender());
+        status.set(docId, product.getStatus());
+        price.set(docId, priceLabel(priceBucket(product.getPrice())));
+        if (docId >= prices.length) {
+            prices = Arrays.copyOf(prices, Math.max(prices.length * 2, docId + 1));
+        }
+        prices[docId] = product.getPrice();
+    }
+
+    public void remove(int docId) {
+        for (Dimension dimension : dimensions) {
+            dimension.clear(docId);
+        }
+    }
+
+    /**
+     * Docs matching every dimension of the filter, or {@code null} when the filter is empty
+     * (everything matches).
+     */
+    public BitSet filter(ProductFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        BitSet result = null;
+        result = and(result, type.union(filter.getTypes()));
+        result = and(result, breed.union(filter.getBreeds()));
+        result = and(result, gender.union(filter.getGenders()));
+        result = and(result, status.union(filter.getStatuses()));
+        if (filter.hasPriceRange()) {
+            result = and(result, priceRange(filter.getMinPrice(), filter.getMaxPrice()));
+        }
+        return result;
+    }
+
+    public Tally newTally() {
+        return new Tally();
+    }
+
+    private BitSet priceRange(Double min, Double max) {
+        double low = min != null ? min : Double.NEGATIVE_INFINITY;
+        double high = max != null ? max : Double.POSITIVE_INFINITY;
+        BitSet result = new BitSet();
+        for (int bucket = 0; bucket <= PRICE_BOUNDS.length; bucket++) {
+            double bucketLow = bucket == 0 ? Double.NEGATIVE_INFINITY : PRICE_BOUNDS[bucket - 1];
+            double bucketHigh = bucket == PRICE_BOUNDS.length ? Double.POSITIVE_INFINITY : PRICE_BOUNDS[bucket];
+            if (bucketHigh <= low || bucketLow > high) {
+                continue;
+            }
+            BitSet bits = price.bits.get(bucket);
+            if (bucketLow >= low && bucketHigh <= high) {
+                result.or(bits);
+            } else {
+                // Bucket straddles a bound: check the exact prices
+                for (int doc = bits.nextSetBit(0); doc >= 0; doc = bits.nextSetBit(doc + 1)) {
+                    if (prices[doc] >= low && prices[doc] <= high) {
+                        result.set(doc);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static BitSet and(BitSet result, BitSet bits) {
+        if (bits == null) {
+            return result;
+        }
+        if (result == null) {
+            return bits;
+        }
+        result.and(bits);
+        return result;
+    }
+
+    static int priceBucket(double value) {
+        for (int bucket = 0; bucket < PRICE_BOUNDS.length; bucket++) {
+            if (value < PRICE_BOUNDS[bucket]) {
+                return bucket;
+            }
+        }
+        return PRICE_BOUNDS.length;
+    }
+
+    static String priceLabel(int bucket) {
+        if (bucket == PRICE_BOUNDS.length) {
+            return Math.round(PRICE_BOUNDS[bucket - 1]) + "+";
+        }
+        long low = bucket == 0 ? 0 : Math.round(PRICE_BOUNDS[bucket - 1]);
+        return low + "-" + Math.round(PRICE_BOUNDS[bucket]);
+    }
+
+    /**
+     * Facet counts collected while iterating over a result set.
+     */
+    public final class Tally {
+        private final int[][] counts = new int[dimensions.length][];
+
+        private Tally() {
+            for (int d = 0; d < dimensions.length; d++) {
+                counts[d] = new int[dimensions[d].labels.size()];
+            }
+        }
+
+        public void add(int docId) {
+            for (int d = 0; d < dimensions.length; d++) {
+                int value = dimensions[d].valueOf(docId);
+                if (value >= 0) {
+                    counts[d][value]++;
+                }
+            }
+        }
+
+        public Map<String, Map<String, Integer>> toMap() {
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            for (int d = 0; d < dimensions.length; d++) {
+                Map<String, Integer> values = new LinkedHashMap<>();
+                for (int v = 0; v < counts[d].length; v++) {
+                    if (counts[d][v] > 0) {
+                        values.put(dimensions[d].labels.get(v), counts[d][v]);
+                    }
+                }
+                facets.put(dimensions[d].name, values);
+            }
+            return facets;
+        }
+    }
+
+    /**
+     * One facet dimension: a dictionary of values (case-insensitive, first spelling wins
+     * as the label), one bitmap per value and the value id of every doc.
+     */
+    private static final class Dimension {
+        final String name;
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> labels = new ArrayList<>();
+        final List<BitSet> bits = new ArrayList<>();
+        int[] valueOfDoc = new int[0];
+
+        Dimension(String name) {
+            this.name = name;
+        }
+
+        int valueId(String label) {
+            return ids.computeIfAbsent(key(label), k -> {
+                labels.add(label.trim());
+                bits.add(new BitSet());
+                return labels.size() - 1;
+            });
+        }
+
+        void set(int docId, String value) {
+            if (docId >= valueOfDoc.length) {
+                int from = valueOfDoc.length;
+                valueOfDoc = Arrays.copyOf(valueOfDoc, Math.max(from * 2, Math.max(docId + 1, 1024)));
+                Arrays.fill(valueOfDoc, from, valueOfDoc.length, -1);
+            }
+            if (value == null || value.trim().isEmpty()) {
+                valueOfDoc[docId] = -1;
+                return;
+            }
+            int id = valueId(value);
+            valueOfDoc[docId] = id;
+            bits.get(id).set(docId);
+        }
+
+        void clear(int docId) {
+            int id = valueOf(docId);
+            if (id >= 0) {
+                bits.get(id).clear(docId);
+                valueOfDoc[docId] = -1;
+            }
+        }
+
+        int valueOf(int docId) {
+            return docId < valueOfDoc.length ? valueOfDoc[docId] : -1;
+        }
+
+        /** Union of the bitmaps of the selected values, or {@code null} if nothing is selected. */
+        BitSet union(List<String> selected) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            BitSet result = new BitSet();
+            for (String value : selected) {
+                Integer id = value != null ? ids.get(key(value)) : null;
+                if (id != null) {
+                    result.or(bits.get(id));
+                }
+            }
+            return result;
+        }
+
+        private static String key(String value) {
+            return value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
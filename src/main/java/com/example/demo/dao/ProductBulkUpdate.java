@@ -0,0 +1,35 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs bulk product updates. They skip the {@link ProductEntityListener}, so the products they
+ * changed are read back afterwards and announced as {@link ProductChangedEvent}s here instead.
+ * Must be called inside the transaction of the update.
+ */
+@Component
+public class ProductBulkUpdate {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * @param update  the bulk update, returning the number of updated rows
+     * @param changed the products as the update left them
+     * @return the number of updated rows
+     */
+    public int run(IntSupplier update, Supplier<List<Product>> changed) {
+        int updated = update.getAsInt();
+        for (Product product : changed.get()) {
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Product;
+import com.example.demo.model.CursorPage;
+import com.example.demo.model.FacetedPage;
+import com.example.demo.model.ProductFilter;
+import com.example.demo.model.ProductInfo;
+import com.example.demo.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-optimized, in-process copy of the product catalog.
+ *
+ * The whole catalog is loaded once and then kept in sync from {@link ProductChangedEvent}s,
+ * so paging, the createDate ordering and search are served from memory instead of
+ * running a LIKE scan plus a count query per request. Until the first load has completed
+ * callers are expected to fall back to the database (counted as a miss).
+ *
+ * Search goes through a {@link TrigramIndex} over name, breed and description and is
+ * ranked by relevance, newest first among equally relevant products. Type, breed, gender,
+ * status and price filters and their facet counts come from a {@link FacetIndex}.
+ */
+@Component
+public class ProductCatalogIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogIndex.class);
+
+    /** Same order as "order by p.createDate desc", with the code as a stable tie-breaker. */
+    static final Comparator<Entry> CATALOG_ORDER = Comparator
+            .comparingLong((Entry e) -> e.createDate).reversed()
+            .thenComparing((Entry e) -> e.code, Comparator.reverseOrder());
+
+    private static final Comparator<ScoredEntry> RELEVANCE_ORDER = Comparator
+            .comparingDouble((ScoredEntry s) -> s.score).reversed()
+            .thenComparing((ScoredEntry s) -> s.entry, CATALOG_ORDER);
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BREED_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Guarded by lock
+    private State state = new State();
+    private List<ProductChangedEvent> changesDuringRebuild;
+    private volatile boolean ready;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+    private final AtomicLong totalRebuildMillis = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.warn("Catalog index warm-up failed, queries will use the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload the index from the database. Changes committed while the load is running
+     * are replayed on top of the fresh copy before it is swapped in.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            State fresh = new State();
+            try {
+                List<Product> products = productRepository.findAll();
+                List<Entry> entries = new ArrayList<>(products.size());
+                for (Product product : products) {
+                    entries.add(new Entry(product));
+                }
+                fresh.load(entries);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                state = fresh;
+                for (ProductChangedEvent change : changesDuringRebuild) {
+                    state.apply(change);
+                }
+                changesDuringRebuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            rebuilds.incrementAndGet();
+            lastRebuildMillis.set(elapsed);
+            totalRebuildMillis.addAndGet(elapsed);
+            logger.info("Catalog index rebuilt with {} products in {} ms", fresh.byCode.size(), elapsed);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+            state.apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Page through the catalog newest first, or by relevance when a search term is given,
+     * keeping only products that match {@code filter} and optionally counting facets over
+     * the whole result. Returns {@code null} if the index has not been loaded yet.
+     */
+    public FacetedPage<ProductInfo> query(Pageable pageable, String searchTerm, ProductFilter filter, boolean withFacets) {
+        if (!ready) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        List<ProductInfo> content = new ArrayList<>(Math.min(pageSize, 128));
+
+        lock.readLock().lock();
+        try {
+            BitSet matching = state.facets.filter(filter);
+            FacetIndex.Tally tally = withFacets ? state.facets.newTally() : null;
+            long total = 0;
+
+            if (searchTerm == null || searchTerm.trim().isEmpty()) {
+                List<Entry> sorted = state.sorted;
+                if (matching == null && tally == null) {
+                    total = sorted.size();
+                    for (long i = offset; i < total && content.size() < pageSize; i++) {
+                        content.add(sorted.get((int) i).info);
+                    }
+                } else {
+                    for (Entry entry : sorted) {
+                        if (matching != null && !matching.get(entry.docId)) {
+                            continue;
+                        }
+                        if (total >= offset && content.size() < pageSize) {
+                            content.add(entry.info);
+                        }
+                        total++;
+                        if (tally != null) {
+                            tally.add(entry.docId);
+                        }
+                    }
+                }
+            } else {
+                TrigramIndex.Hits found = state.trigrams.search(searchTerm);
+                List<ScoredEntry> ranked = new ArrayList<>(found.size());
+                for (int i = 0; i < found.size(); i++) {
+                    int doc = found.doc(i);
+                    if (matching != null && !matching.get(doc)) {
+                        continue;
+                    }
+                    ranked.add(new ScoredEntry(state.docs.get(doc), found.score(i)));
+                    if (tally != null) {
+                        tally.add(doc);
+                    }
+                }
+                ranked.sort(RELEVANCE_ORDER);
+                total = ranked.size();
+                for (long i = offset; i < total && content.size() < pageSize; i++) {
+                    content.add(ranked.get((int) i).entry.info);
+                }
+            }
+            Map<String, Map<String, Integer>> facets = tally != null ? tally.toMap() : Collections.emptyMap();
+            return new FacetedPage<>(content, pageable, total, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Return up to {@code size} products matching {@code filter} that come after {@code after}
+     * in catalog order, or {@code null} if the index has not been loaded yet. Finding the start
+     * position is a binary search, so deep pages cost the same as the first one.
+     */
+    public CursorPage<ProductInfo> scroll(ProductCursor after, int size, ProductFilter filter) {
+        if (!ready) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+
+        lock.readLock().lock();
+        try {
+            List<Entry> sorted = state.sorted;
+            BitSet matching = state.facets.filter(filter);
+            int position = 0;
+            if (after != null) {
+                int at = Collections.binarySearch(sorted, new Entry(after.code(), after.createDate()), CATALOG_ORDER);
+                position = at >= 0 ? at + 1 : -at - 1;
+            }
+            List<ProductInfo> items = new ArrayList<>(Math.min(size, 128));
+            Entry last = null;
+            boolean hasMore = false;
+            for (; position < sorted.size(); position++) {
+                Entry entry = sorted.get(position);
+                if (matching != null && !matching.get(entry.docId)) {
+                    continue;
+                }
+                if (items.size() == size) {
+                    hasMore = true;
+                    break;
+                }
+                items.add(entry.info);
+                last = entry;
+            }
+            String next = hasMore && last != null ? last.cursor().encode() : null;
+            return new CursorPage<>(items, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Look up a single product, or {@code null} if it is unknown or the index is not loaded.
+     */
+    public ProductInfo find(String code) {
+        if (!ready) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        lock.readLock().lock();
+        try {
+            Entry entry = state.byCode.get(code);
+            return entry != null ? entry.info : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("size", size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("lastRebuildMillis", lastRebuildMillis.get());
+        stats.put("totalRebuildMillis", totalRebuildMillis.get());
+        return stats;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.byCode.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Everything derived from the catalog, swapped as a whole on rebuild.
+     * Mutated only under the write lock.
+     */
+    private static final class State {
+        final Map<String, Entry> byCode = new HashMap<>();
+        final List<Entry> sorted = new ArrayList<>();
+        final List<Entry> docs = new ArrayList<>();
+        TrigramIndex trigrams = newTrigramIndex();
+        FacetIndex facets = new FacetIndex();
+
+        void load(List<Entry> entries) {
+            for (Entry entry : entries) {
+                byCode.put(entry.code, entry);
+                sorted.add(entry);
+                addDoc(entry);
+            }
+            sorted.sort(CATALOG_ORDER);
+        }
+
+        void apply(ProductChangedEvent event) {
+            Entry previous = byCode.remove(event.getCode());
+            if (previous != null) {
+                int at = Collections.binarySearch(sorted, previous, CATALOG_ORDER);
+                if (at >= 0) {
+                    sorted.remove(at);
+                }
+                docs.set(previous.docId, null);
+                trigrams.remove(previous.docId);
+                facets.remove(previous.docId);
+            }
+            if (!event.isRemoved()) {
+                Entry entry = new Entry(event.getProduct());
+                byCode.put(entry.code, entry);
+                int at = Collections.binarySearch(sorted, entry, CATALOG_ORDER);
+                sorted.add(at < 0 ? -at - 1 : at, entry);
+                addDoc(entry);
+            }
+            if (trigrams.deletedCount() > Math.max(1024, trigrams.size() / 4)) {
+                compact();
+            }
+        }
+
+        private void addDoc(Entry entry) {
+            entry.docId = docs.size();
+            docs.add(entry);
+            trigrams.add(entry.docId, entry.info.getName(), entry.info.getBreed(), entry.info.getDescription());
+            facets.add(entry.docId, entry.info);
+        }
+
+        /** Drop tombstoned doc ids by re-numbering the live entries. */
+        private void compact() {
+            docs.clear();
+            trigrams = newTrigramIndex();
+            facets = new FacetIndex();
+            for (Entry entry : sorted) {
+                addDoc(entry);
+            }
+        }
+
+        private static TrigramIndex newTrigramIndex() {
+            return new TrigramIndex(NAME_WEIGHT, BREED_WEIGHT, DESCRIPTION_WEIGHT);
+        }
+    }
+
+    static final class Entry {
+        final String code;
+        final long createDate;
+        final ProductInfo info;
+        int docId;
+
+        Entry(Product product) {
+            this.code = product.getCode();
+            this.createDate = product.getCreateDate() != null ? product.getCreateDate().getTime() : Long.MIN_VALUE;
+            this.info = new ProductInfo(product);
+        }
+
+        /** Search key only, see {@link #scroll}. */
+        Entry(String code, long createDate) {
+            this.code = code;
+            this.createDate = createDate;
+            this.info = null;
+        }
+
+        ProductCursor cursor() {
+            return new ProductCursor(createDate, code);
+        }
+    }
+
+    private record ScoredEntry(Entry entry, float score) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Product;
+
+/**
+ * Published whenever a product row is inserted, updated or removed, no matter
+ * whether the write went through {@link ProductDAO} or straight through the
+ * {@code ProductRepository}. Listeners that keep read-side copies of the catalog
+ * should consume it with {@code @TransactionalEventListener} so they only see
+ * committed state.
+ */
+public class ProductChangedEvent {
+
+    private final String code;
+    private final Product product;
+    private final boolean removed;
+
+    private ProductChangedEvent(String code, Product product, boolean removed) {
+        this.code = code;
+        this.product = product;
+        this.removed = removed;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getCode(), product, false);
+    }
+
+    public static ProductChangedEvent removed(String code) {
+        return new ProductChangedEvent(code, null, true);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * The saved entity, or {@code null} when the product was removed.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the catalog order (createDate desc, code desc). Clients only ever see
+ * the opaque {@link #encode() encoded} form, handed back as the "cursor" parameter.
+ * Products without a createDate sort last and use {@link Long#MIN_VALUE}.
+ */
+public record ProductCursor(long createDate, String code) {
+
+    public String encode() {
+        String raw = createDate + ":" + code;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor, or return {@code null} for an empty one (the first page).
+     *
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    public static ProductCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new ProductCursor(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -1,24 +1,33 @@
 package com.example.demo.dao;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.ProductForm;
+import com.example.demo.model.CursorPage;
+import com.example.demo.model.FacetedPage;
+import com.example.demo.model.ProductFilter;
 import com.example.demo.model.ProductInfo;
+import com.example.demo.service.ImageStore;
+import com.example.demo.service.ImageVariantService;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 @Transactional
 @Repository
@@ -27,7 +36,17 @@ public class ProductDAO {
     @PersistenceContext
     private EntityManager entityManager;
 
-    private static final String UPLOAD_DIR = "src/main/resources/static/product-images/";
+    @Autowired
+    private ProductCatalogIndex catalogIndex;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    // Product count for callers that ask for a total, -1 until computed or after a write
+    private final AtomicLong cachedCount = new AtomicLong(-1);
 
     public Product findProduct(String code) {
         try {
@@ -41,6 +60,9 @@ public class ProductDAO {
     }
 
     public ProductInfo findProductInfo(String code) {
+        if (catalogIndex.isReady()) {
+            return catalogIndex.find(code);
+        }
         Product product = this.findProduct(code);
         return product != null ? new ProductInfo(product) : null;
     }
@@ -67,30 +89,32 @@ public class ProductDAO {
         product.setDescription(productForm.getDescription());
         product.setStatus(productForm.getStatus());
 
+        ImageStore.StagedImage image = null;
         if (productForm.getFileData() != null && !productForm.getFileData().isEmpty()) {
             try {
-                Path uploadPath = Paths.get(UPLOAD_DIR);
-                if (!Files.exists(uploadPath)) {
-                    Files.createDirectories(uploadPath);
-                }
-
-                String fileName = code + "_" + System.currentTimeMillis() + getFileExtension(productForm.getFileData().getOriginalFilename());
-                Path filePath = uploadPath.resolve(fileName);
-
-                Files.copy(productForm.getFileData().getInputStream(), filePath);
-
-                product.setImagePath("/product-images/" + fileName);
+                image = imageStore.stage(productForm.getFileData());
             } catch (IOException e) {
                 throw new RuntimeException("Failed to save product image: " + e.getMessage(), e);
             }
+            product.setImagePath(image.getPath());
         }
 
-        if (isNew) {
-            entityManager.persist(product);
-        } else {
-            entityManager.merge(product);
+        try {
+            if (isNew) {
+                entityManager.persist(product);
+            } else {
+                entityManager.merge(product);
+            }
+            entityManager.flush();
+            if (image != null) {
+                imageStore.publish(image);
+                imageVariantService.requestVariants(image.getPath());
+            }
+        } finally {
+            if (image != null) {
+                image.close();
+            }
         }
-        entityManager.flush();
     }
     
     @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
@@ -105,58 +129,177 @@ public class ProductDAO {
             throw new IllegalArgumentException("No product found with code: " + code);
         }
         
-        // Delete image file if exists
-        if (product.getImagePath() != null) {
-            try {
-                String fileName = product.getImagePath().substring(product.getImagePath().lastIndexOf("/") + 1);
-                Path filePath = Paths.get(UPLOAD_DIR, fileName);
-                Files.deleteIfExists(filePath);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to delete product image: " + e.getMessage(), e);
-            }
-        }
-        
         entityManager.remove(product);
         entityManager.flush();
-    }
 
-    private String getFileExtension(String fileName) {
-        if (fileName == null) return "";
-        int lastDotIndex = fileName.lastIndexOf(".");
-        return lastDotIndex == -1 ? "" : fileName.substring(lastDotIndex);
+        // Delete the image file once committed, unless another product shows the same image
+        String imagePath = product.getImagePath();
+        if (imagePath != null && entityManager.createQuery("Select count(p) from " + Product.class.getName()
+                + " p Where p.imagePath = :imagePath", Long.class)
+                .setParameter("imagePath", imagePath).getSingleResult() == 0) {
+            imageStore.delete(imagePath);
+        }
     }
 
     public Page<ProductInfo> queryProducts(Pageable pageable, String likeName) {
-        String baseSelect = "Select p from " + Product.class.getName() + " p";
-        String baseCount = "Select count(p) from " + Product.class.getName() + " p";
-        
-        if (likeName != null && !likeName.trim().isEmpty()) {
-            baseSelect += " Where lower(p.name) like :likeName";
-            baseCount += " Where lower(p.name) like :likeName";
+        return queryProducts(pageable, likeName, null, false);
+    }
+
+    public Page<ProductInfo> queryProducts(Pageable pageable) {
+        return queryProducts(pageable, null);
+    }
+
+    /**
+     * Page through the products matching the search term and facet filter. Facet counts are
+     * only available from the catalog index; the database fallback returns the page without them.
+     */
+    public FacetedPage<ProductInfo> queryProducts(Pageable pageable, String likeName, ProductFilter filter, boolean withFacets) {
+        FacetedPage<ProductInfo> indexed = catalogIndex.query(pageable, likeName, filter, withFacets);
+        if (indexed != null) {
+            return indexed;
         }
 
-        baseSelect += " order by p.createDate desc";
-        
-        Query query = entityManager.createQuery(baseSelect);
-        Query countQuery = entityManager.createQuery(baseCount);
-        
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
         if (likeName != null && !likeName.trim().isEmpty()) {
-            String likeValue = "%" + likeName.toLowerCase() + "%";
-            query.setParameter("likeName", likeValue);
-            countQuery.setParameter("likeName", likeValue);
+            conditions.add("lower(p.name) like :likeName");
+            params.put("likeName", "%" + likeName.toLowerCase() + "%");
         }
-        
+        addFilterConditions(filter, conditions, params);
+        String where = conditions.isEmpty() ? "" : " Where " + String.join(" and ", conditions);
+
+        Query query = entityManager.createQuery("Select p from " + Product.class.getName() + " p" + where
+                + " order by p.createDate desc, p.code desc");
+        Query countQuery = entityManager.createQuery("Select count(p) from " + Product.class.getName() + " p" + where);
+        params.forEach((name, value) -> {
+            query.setParameter(name, value);
+            countQuery.setParameter(name, value);
+        });
+
         query.setFirstResult((int) pageable.getOffset());
         query.setMaxResults(pageable.getPageSize());
-        
+
         List<Product> products = query.getResultList();
         List<ProductInfo> content = products.stream().map(ProductInfo::new).toList();
         Long total = (Long) countQuery.getSingleResult();
 
-        return new PageImpl<>(content, pageable, total);
+        return new FacetedPage<>(content, pageable, total, Collections.emptyMap());
     }
-    
-    public Page<ProductInfo> queryProducts(Pageable pageable) {
-        return queryProducts(pageable, null);
+
+    /**
+     * Keyset pagination over (createDate desc, code desc). Pass {@code null} for the first
+     * page and the returned next cursor for the following ones.
+     */
+    public CursorPage<ProductInfo> scrollProducts(String cursor, int size) {
+        return scrollProducts(cursor, size, null);
+    }
+
+    public CursorPage<ProductInfo> scrollProducts(String cursor, int size, ProductFilter filter) {
+        ProductCursor after = ProductCursor.decode(cursor);
+        CursorPage<ProductInfo> indexed = catalogIndex.scroll(after, size, filter);
+        if (indexed != null) {
+            return indexed;
+        }
+
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        if (after != null) {
+            if (after.createDate() == Long.MIN_VALUE) {
+                conditions.add("p.createDate is null and p.code < :code");
+            } else {
+                conditions.add("(p.createDate < :createDate"
+                        + " or (p.createDate = :createDate and p.code < :code)"
+                        + " or p.createDate is null)");
+                params.put("createDate", new Date(after.createDate()));
+            }
+            params.put("code", after.code());
+        }
+        addFilterConditions(filter, conditions, params);
+        String where = conditions.isEmpty() ? "" : " Where " + String.join(" and ", conditions);
+
+        Query query = entityManager.createQuery("Select p from " + Product.class.getName() + " p" + where
+                + " order by p.createDate desc, p.code desc");
+        params.forEach(query::setParameter);
+        // One extra row tells whether there is a next page
+        query.setMaxResults(size + 1);
+
+        List<Product> products = query.getResultList();
+        boolean hasMore = products.size() > size;
+        List<ProductInfo> items = new ArrayList<>(Math.min(products.size(), size));
+        for (int i = 0; i < products.size() && i < size; i++) {
+            items.add(new ProductInfo(products.get(i)));
+        }
+        String next = null;
+        if (hasMore && size > 0) {
+            Product last = products.get(size - 1);
+            long createDate = last.getCreateDate() != null ? last.getCreateDate().getTime() : Long.MIN_VALUE;
+            next = new ProductCursor(createDate, last.getCode()).encode();
+        }
+        return new CursorPage<>(items, next);
+    }
+
+    private void addFilterConditions(ProductFilter filter, List<String> conditions, Map<String, Object> params) {
+        if (filter == null || filter.isEmpty()) {
+            return;
+        }
+        if (!filter.getTypes().isEmpty()) {
+            List<Product.PetType> types = new ArrayList<>();
+            for (String type : filter.getTypes()) {
+                for (Product.PetType petType : Product.PetType.values()) {
+                    if (petType.name().equalsIgnoreCase(type.trim())) {
+                        types.add(petType);
+                    }
+                }
+            }
+            if (types.isEmpty()) {
+                conditions.add("1 = 0");
+            } else {
+                conditions.add("p.type in :types");
+                params.put("types", types);
+            }
+        }
+        addInCondition("p.breed", "breeds", filter.getBreeds(), conditions, params);
+        addInCondition("p.gender", "genders", filter.getGenders(), conditions, params);
+        addInCondition("p.status", "statuses", filter.getStatuses(), conditions, params);
+        if (filter.getMinPrice() != null) {
+            conditions.add("p.price >= :minPrice");
+            params.put("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add("p.price <= :maxPrice");
+            params.put("maxPrice", filter.getMaxPrice());
+        }
+    }
+
+    private void addInCondition(String path, String param, List<String> values,
+                                List<String> conditions, Map<String, Object> params) {
+        if (values.isEmpty()) {
+            return;
+        }
+        conditions.add("lower(trim(" + path + ")) in :" + param);
+        params.put(param, values.stream().map(value -> value.trim().toLowerCase()).toList());
+    }
+
+    /**
+     * Number of products, answered by the catalog index or a count query cached until the next write.
+     */
+    public long countProducts() {
+        if (catalogIndex.isReady()) {
+            return catalogIndex.size();
+        }
+        long count = cachedCount.get();
+        if (count < 0) {
+            String sql = "Select count(p) from " + Product.class.getName() + " p";
+            count = (Long) entityManager.createQuery(sql).getSingleResult();
+            cachedCount.set(count);
+        }
+        return count;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onProductChanged(ProductChangedEvent event) {
+        cachedCount.set(-1);
     }
 }
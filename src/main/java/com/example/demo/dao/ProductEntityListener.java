@@ -0,0 +1,30 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns every product write into a {@link ProductChangedEvent}.
+ * Hibernate obtains this listener from the Spring bean container, so the publisher is
+ * injected even though the class is not a component itself.
+ */
+public class ProductEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Product product) {
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+    }
+
+    @PostRemove
+    public void onRemoved(Product product) {
+        eventPublisher.publishEvent(ProductChangedEvent.removed(product.getCode()));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.dao;
+
+import com.example.demo.model.ProductInfo;
+import com.example.demo.model.ProductJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized JSON of every product listed through the API, so list responses are assembled
+ * from ready fragments instead of serializing each {@link ProductInfo} again.
+ *
+ * A fragment is reused only for the very ProductInfo it was rendered from. The catalog index
+ * hands out the same instance until the product changes and replaces it, so the fragment can
+ * never be older than what the index shows; the {@link ProductChangedEvent} only frees it.
+ */
+@Component
+public class ProductJsonCache {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ObjectWriter writer;
+
+    private final Map<String, Fragment> fragments = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        writer = objectMapper.writerFor(ProductInfo.class);
+    }
+
+    public List<ProductJson> toJson(List<ProductInfo> products) {
+        List<ProductJson> json = new ArrayList<>(products.size());
+        for (ProductInfo product : products) {
+            json.add(toJson(product));
+        }
+        return json;
+    }
+
+    public ProductJson toJson(ProductInfo product) {
+        Fragment cached = fragments.get(product.getCode());
+        if (cached != null && cached.source() == product) {
+            hits.incrementAndGet();
+            return cached.json();
+        }
+        misses.incrementAndGet();
+        try {
+            ProductJson json = ProductJson.render(writer, product);
+            fragments.put(product.getCode(), new Fragment(product, json));
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize product " + product.getCode(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onProductChanged(ProductChangedEvent event) {
+        fragments.remove(event.getCode());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fragments", fragments.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    private record Fragment(ProductInfo source, ProductJson json) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.dao;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import com.example.demo.entity.Reservation;
+import com.example.demo.entity.Reservation.ReservationStatus;
+import com.example.demo.model.ReservationFilter;
+import com.example.demo.model.ReservationSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Admin reservation listing. Rows are selected straight into {@link ReservationSummary} with
+ * the product joined in, so neither the entities nor their lazy products are loaded.
+ * Pending reservations come first, then the newest.
+ */
+@Transactional(readOnly = true)
+@Repository
+public class ReservationDAO {
+
+    private static final String SELECT_SUMMARY = "Select new " + ReservationSummary.class.getName()
+            + "(r.id, r.customerName, r.customerEmail, r.customerPhone, r.customerAddress, r.preferredVisitDate,"
+            + " r.message, r.reservationDate, r.status, p.code, p.name, r.reservedItemsDetails)"
+            + " from " + Reservation.class.getName() + " r left join r.product p";
+
+    private static final String ORDER_BY = " order by case when r.status = :pending then 0 else 1 end,"
+            + " r.reservationDate desc, r.id desc";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Page<ReservationSummary> queryReservations(Pageable pageable, ReservationFilter filter) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        addFilterConditions(filter, conditions, params);
+        String where = conditions.isEmpty() ? "" : " Where " + String.join(" and ", conditions);
+
+        TypedQuery<ReservationSummary> query = entityManager.createQuery(SELECT_SUMMARY + where + ORDER_BY,
+                ReservationSummary.class);
+        TypedQuery<Long> countQuery = entityManager.createQuery(
+                "Select count(r) from " + Reservation.class.getName() + " r" + where, Long.class);
+        params.forEach((name, value) -> {
+            query.setParameter(name, value);
+            countQuery.setParameter(name, value);
+        });
+        query.setParameter("pending", ReservationStatus.PENDING);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+
+        return new PageImpl<>(query.getResultList(), pageable, countQuery.getSingleResult());
+    }
+
+    /**
+     * Number of reservations per status (every status is present), for the dashboard counters.
+     */
+    public Map<String, Long> countByStatus() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ReservationStatus status : ReservationStatus.values()) {
+            counts.put(status.name(), 0L);
+        }
+        List<Object[]> rows = entityManager.createQuery("Select r.status, count(r) from "
+                + Reservation.class.getName() + " r group by r.status", Object[].class).getResultList();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.put(((ReservationStatus) row[0]).name(), (Long) row[1]);
+            }
+        }
+        return counts;
+    }
+
+    private void addFilterConditions(ReservationFilter filter, List<String> conditions, Map<String, Object> params) {
+        if (filter == null || filter.isEmpty()) {
+            return;
+        }
+        if (!filter.getStatuses().isEmpty()) {
+            conditions.add("r.status in :statuses");
+            params.put("statuses", filter.getStatuses());
+        }
+        if (filter.getFrom() != null) {
+            conditions.add("r.reservationDate >= :from");
+            params.put("from", Date.from(filter.getFrom().atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        }
+        if (filter.getTo() != null) {
+            // Inclusive end date: everything before the start of the next day
+            conditions.add("r.reservationDate < :to");
+            params.put("to", Date.from(filter.getTo().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        }
+        if (filter.getCustomer() != null) {
+            conditions.add("(lower(r.customerEmail) like :customer or lower(r.customerName) like :customer)");
+            params.put("customer", "%" + filter.getCustomer().toLowerCase() + "%");
+        }
+    }
+}
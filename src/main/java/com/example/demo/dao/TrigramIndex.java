@@ -0,0 +1,297 @@
+package com.example.demo.dao;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trigram inverted index over a fixed number of weighted text fields.
+ *
+ * Words are padded as {@code "  word "}, so the leading trigrams of a word double as
+ * prefix keys and a query's last (still being typed) token is matched as a prefix.
+ * Documents are scored by the share of query trigrams found in each field, which
+ * tolerates typos, plus a boost for exact substring and word-prefix hits. Queries of at
+ * most three trigrams must match all of them, and also match any field containing them
+ * mid-word ("og" finds "dog"), which the word-start trigrams cannot see; those few-letter
+ * queries scan the live texts.
+ *
+ * Doc ids are expected to be handed out in increasing order: postings stay sorted
+ * by construction and are merged without any per-query scratch arrays. Removed docs
+ * are only tombstoned; callers rebuild the index once {@link #deletedCount()} grows.
+ *
+ * Not thread-safe; {@link ProductCatalogIndex} guards it with its read/write lock.
+ */
+public class TrigramIndex {
+
+    /** Minimum share of query trigrams one field has to contain for a typo-tolerant match. */
+    public static final float MIN_SIMILARITY = 0.5f;
+
+    private final float[] fieldWeights;
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private String[][] texts = new String[1024][];
+    private int maxDoc;
+    private int liveCount;
+
+    public TrigramIndex(float... fieldWeights) {
+        if (fieldWeights.length == 0 || fieldWeights.length > 4) {
+            throw new IllegalArgumentException("Between one and four fields are supported");
+        }
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    public void add(int docId, String... values) {
+        if (docId < maxDoc) {
+            throw new IllegalArgumentException("Doc ids must be added in increasing order: " + docId);
+        }
+        if (docId >= texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(texts.length * 2, docId + 1));
+        }
+        String[] normalized = new String[fieldWeights.length];
+        for (int field = 0; field < fieldWeights.length; field++) {
+            String text = normalize(field < values.length ? values[field] : null);
+            normalized[field] = text;
+            for (long gram : trigrams(text, true)) {
+                postings.computeIfAbsent(key(gram, field), k -> new IntList()).add(docId);
+            }
+        }
+        texts[docId] = normalized;
+        live.set(docId);
+        liveCount++;
+        maxDoc = docId + 1;
+    }
+
+    public void remove(int docId) {
+        if (docId < maxDoc && live.get(docId)) {
+            live.clear(docId);
+            texts[docId] = null;
+            liveCount--;
+        }
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    public int deletedCount() {
+        return maxDoc - liveCount;
+    }
+
+    /**
+     * Find every live document matching {@code query}, in doc id order. Scores are only
+     * comparable within one result.
+     */
+    public Hits search(String query) {
+        String normalizedQuery = normalize(query);
+        boolean lastTokenComplete = query != null && !query.isEmpty()
+                && !Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        long[] queryGrams = trigrams(normalizedQuery, lastTokenComplete);
+        Hits hits = new Hits();
+        if (queryGrams.length == 0) {
+            return hits;
+        }
+
+        // One cursor per (gram, field) posting list, merged in doc id order
+        int fields = fieldWeights.length;
+        IntList[] lists = new IntList[queryGrams.length * fields];
+        int[] listField = new int[lists.length];
+        int listCount = 0;
+        for (long gram : queryGrams) {
+            for (int field = 0; field < fields; field++) {
+                IntList list = postings.get(key(gram, field));
+                if (list != null) {
+                    lists[listCount] = list;
+                    listField[listCount] = field;
+                    listCount++;
+                }
+            }
+        }
+        int[] cursor = new int[listCount];
+        int required = queryGrams.length <= 3
+                ? queryGrams.length
+                : (int) Math.ceil(queryGrams.length * MIN_SIMILARITY);
+        int[] fieldCounts = new int[fields];
+
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (int i = 0; i < listCount; i++) {
+                if (cursor[i] < lists[i].size) {
+                    doc = Math.min(doc, lists[i].values[cursor[i]]);
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+            Arrays.fill(fieldCounts, 0);
+            for (int i = 0; i < listCount; i++) {
+                if (cursor[i] < lists[i].size && lists[i].values[cursor[i]] == doc) {
+                    fieldCounts[listField[i]]++;
+                    cursor[i]++;
+                }
+            }
+            if (!live.get(doc)) {
+                continue;
+            }
+            int best = 0;
+            float score = 0;
+            for (int field = 0; field < fields; field++) {
+                best = Math.max(best, fieldCounts[field]);
+                score += fieldWeights[field] * fieldCounts[field] / queryGrams.length;
+            }
+            if (best < required) {
+                continue;
+            }
+            hits.add(doc, score + substringScore(texts[doc], normalizedQuery));
+        }
+        if (queryGrams.length > 3) {
+            return hits;
+        }
+
+        // Add the documents containing a short query mid-word, keeping doc id order
+        Hits withSubstrings = new Hits();
+        int next = 0;
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            if (next < hits.size && hits.docs[next] == doc) {
+                withSubstrings.add(doc, hits.scores[next++]);
+                continue;
+            }
+            float score = substringScore(texts[doc], normalizedQuery);
+            if (score > 0) {
+                withSubstrings.add(doc, score);
+            }
+        }
+        return withSubstrings;
+    }
+
+    /**
+     * The boost for fields containing the query: a field's weight when it starts a word, half
+     * of it mid-word.
+     */
+    private float substringScore(String[] docTexts, String normalizedQuery) {
+        float score = 0;
+        for (int field = 0; field < fieldWeights.length; field++) {
+            String text = docTexts[field];
+            int at = text.indexOf(normalizedQuery);
+            if (at == 0 || (at > 0 && text.charAt(at - 1) == ' ')) {
+                score += fieldWeights[field];
+            } else if (at > 0) {
+                score += fieldWeights[field] / 2;
+            }
+        }
+        return score;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                pendingSpace = false;
+                sb.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Distinct, sorted trigrams of an already normalized text. Every word is padded with two
+     * leading blanks and, unless it is the final word of an incomplete query, one trailing blank.
+     */
+    static long[] trigrams(String normalized, boolean lastWordComplete) {
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        long[] grams = new long[normalized.length() * 2 + 4];
+        int count = 0;
+        int start = 0;
+        while (start < normalized.length()) {
+            int end = normalized.indexOf(' ', start);
+            if (end < 0) {
+                end = normalized.length();
+            }
+            boolean padEnd = end < normalized.length() || lastWordComplete;
+            char a = ' ';
+            char b = ' ';
+            for (int i = start; i < end; i++) {
+                char c = normalized.charAt(i);
+                grams[count++] = pack(a, b, c);
+                a = b;
+                b = c;
+            }
+            if (padEnd) {
+                grams[count++] = pack(a, b, ' ');
+            }
+            start = end + 1;
+        }
+        long[] sorted = Arrays.copyOf(grams, count);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static Long key(long gram, int field) {
+        return (gram << 2) | field;
+    }
+
+    /**
+     * Matching doc ids with their scores, in doc id order.
+     */
+    public static final class Hits {
+        private int[] docs = new int[16];
+        private float[] scores = new float[16];
+        private int size;
+
+        void add(int doc, float score) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            docs[size] = doc;
+            scores[size] = score;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int doc(int i) {
+            return docs[i];
+        }
+
+        public float score(int i) {
+            return scores[i];
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
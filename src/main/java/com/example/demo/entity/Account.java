@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.Email;
@@ -11,8 +12,11 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
+import com.example.demo.dao.AccountEntityListener;
+
 @Entity
 @Table(name = "Accounts")
+@EntityListeners(AccountEntityListener.class)
 public class Account implements Serializable {
 
     private static final long serialVersionUID = -2054386655979281969L;
@@ -19,7 +19,10 @@ public class PersistentCart {
     private String userId;
 
     @Column(columnDefinition = "TEXT")
-    private String cartData; // JSON string of cart data
+    private String cartData; // Legacy JSON string of cart data, replaced by cartSnapshot
+
+    @Column(name = "cart_snapshot", columnDefinition = "BLOB")
+    private byte[] cartSnapshot; // CartSnapshotCodec encoded lines
 
     @Column(name = "last_updated")
     private Date lastUpdated;
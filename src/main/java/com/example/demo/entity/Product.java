@@ -2,12 +2,15 @@ package com.example.demo.entity;
 
 import jakarta.persistence.*;
 import java.util.Date;
+import java.util.Objects;
 import lombok.Getter;
 import lombok.Setter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.example.demo.dao.ProductEntityListener;
 
 @Entity
 @Table(name = "products")
+@EntityListeners(ProductEntityListener.class)
 @Getter
 @Setter
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
@@ -42,4 +45,27 @@ public class Product {
     private Date createDate;
 
     private String imagePath;
+
+    // Names of the generated variants of the image, e.g. "thumb.jpg,w320.jpg"; see ProductInfo
+    @Column(name = "image_variants")
+    private String imageVariants;
+
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private long version;
+
+    // Pending reservation holding this pet at checkout, until heldUntil
+    @Column(name = "hold_reservation_id")
+    private Long holdReservationId;
+
+    @Column(name = "held_until")
+    private Date heldUntil;
+
+    public void setImagePath(String imagePath) {
+        if (!Objects.equals(this.imagePath, imagePath)) {
+            // Variants belong to the old image
+            this.imageVariants = null;
+        }
+        this.imagePath = imagePath;
+    }
 }
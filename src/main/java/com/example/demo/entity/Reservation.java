@@ -1,13 +1,17 @@
 package com.example.demo.entity;
 
 import jakarta.persistence.*;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import lombok.Getter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservations_customer_status", columnList = "customer_email, status")
+})
 @Getter
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Reservation {
@@ -36,11 +40,15 @@ public class Reservation {
     @JoinColumn(name = "product_code")
     private Product product;
 
-    // Store cart items details as a JSON string or in a related table
-    // For simplicity, storing as a string for now
+    // Snapshot of the reserved cart lines as JSON, kept for display only;
+    // the reserved pets themselves are the items
     @Column(columnDefinition = "TEXT")
     private String reservedItemsDetails;
 
+    @OneToMany(mappedBy = "reservation", cascade = CascadeType.PERSIST)
+    @JsonIgnore
+    private List<ReservationItem> items = new ArrayList<>();
+
     public enum ReservationStatus {
         PENDING,
         ACCEPTED,
@@ -84,6 +92,11 @@ public class Reservation {
         this.reservedItemsDetails = reservedItemsDetails;
     }
 
+    public void addItem(ReservationItem item) {
+        item.setReservation(this);
+        this.items.add(item);
+    }
+
     public void setStatus(Object status) {
         if (status instanceof ReservationStatus) {
             this.status = (ReservationStatus) status;
@@ -0,0 +1,43 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One reserved pet of a {@link Reservation}, with the name and price at reservation time.
+ * Deleting a reservation deletes its items in the database.
+ */
+@Entity
+@Table(name = "reservation_items", indexes = {
+        @Index(name = "idx_reservation_items_reservation", columnList = "reservation_id"),
+        @Index(name = "idx_reservation_items_product", columnList = "product_code")
+})
+@Getter
+@Setter
+public class ReservationItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "reservation_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Reservation reservation;
+
+    // Null if the product no longer existed when the item was migrated
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_code")
+    private Product product;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "unit_price")
+    private double unitPrice;
+
+    private int quantity;
+}
@@ -0,0 +1,37 @@
+package com.example.demo.model;
+
+import com.example.demo.entity.Account;
+
+/**
+ * The public part of an account, as returned by {@code /api/user} and sign-in.
+ */
+public class AccountInfo {
+
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String role;
+
+    public AccountInfo(Account account) {
+        this.email = account.getEmail();
+        this.firstName = account.getFirstName();
+        this.lastName = account.getLastName();
+        this.role = account.getRole();
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getRole() {
+        return role;
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.demo.model;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import com.example.demo.model.CustomerInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class CartInfo {
 
@@ -10,9 +13,11 @@ public class CartInfo {
 
     private CustomerInfo customerInfo;
 
-    private List<CartLineInfo> cartLines = new ArrayList<>();
+    // Lines keyed by product code, in insertion order
+    private final Map<String, CartLineInfo> cartLines = new LinkedHashMap<>();
 
-    private double totalAmount;
+    // Running totals, kept up to date by every change of the lines
+    private long totalCents;
 
     private int totalQuantity;
 
@@ -36,66 +41,66 @@ public class CartInfo {
         this.customerInfo = customerInfo;
     }
 
+    /**
+     * Snapshot of the cart lines; change the cart through {@link #addProduct},
+     * {@link #updateProduct} and {@link #removeProduct} instead, which keep the totals.
+     */
     public List<CartLineInfo> getCartLines() {
-        return cartLines;
+        return new ArrayList<>(cartLines.values());
     }
 
     public void setCartLines(List<CartLineInfo> cartLines) {
-        this.cartLines = cartLines;
+        this.cartLines.clear();
+        this.totalCents = 0;
+        this.totalQuantity = 0;
+        if (cartLines != null) {
+            for (CartLineInfo line : cartLines) {
+                CartLineInfo previous = this.cartLines.put(line.getProductInfo().getCode(), line);
+                if (previous != null) {
+                    subtract(previous);
+                }
+                this.totalCents += line.getAmountCents();
+                this.totalQuantity += line.getQuantity();
+            }
+        }
     }
 
     public double getTotalAmount() {
-        return totalAmount;
+        return totalCents / 100.0;
     }
 
-    public void setTotalAmount(double totalAmount) {
-        this.totalAmount = totalAmount;
+    /**
+     * Exact cart total in cents.
+     */
+    @JsonIgnore
+    public long getTotalCents() {
+        return totalCents;
     }
 
     public int getTotalQuantity() {
         return totalQuantity;
     }
 
-    public void setTotalQuantity(int totalQuantity) {
-        this.totalQuantity = totalQuantity;
-    }
-
-    private CartLineInfo findLineByCode(String code) {
-        for (CartLineInfo line : this.cartLines) {
-            if (line.getProductInfo().getCode().equals(code)) {
-                return line;
-            }
-        }
-        return null;
+    public CartLineInfo findLineByCode(String code) {
+        return this.cartLines.get(code);
     }
 
     public void addProduct(ProductInfo productInfo, int quantity) {
-        System.out.println("Attempting to add product: " + productInfo.getCode() + " with quantity: " + quantity);
         CartLineInfo line = this.findLineByCode(productInfo.getCode());
 
         if (line == null) {
-            System.out.println("Product not found in cart. Adding new line.");
-            // If product is not in the cart, add a new line
+            if (quantity <= 0) {
+                return;
+            }
             line = new CartLineInfo();
             line.setProductInfo(productInfo);
-            line.setQuantity(quantity); // Set initial quantity
-            this.cartLines.add(line);
-            System.out.println("New line added. Cart size: " + this.cartLines.size());
+            line.setQuantity(quantity);
+            this.cartLines.put(productInfo.getCode(), line);
+            this.totalCents += line.getAmountCents();
+            this.totalQuantity += quantity;
         } else {
-            System.out.println("Product found in cart. Updating quantity.");
-            System.out.println("Current quantity: " + line.getQuantity());
-            // If product is already in the cart, update quantity
-            int newQuantity = line.getQuantity() + quantity;
-            System.out.println("New quantity: " + newQuantity);
-            if (newQuantity <= 0) {
-                this.cartLines.remove(line);
-                System.out.println("Quantity <= 0. Removing line. Cart size: " + this.cartLines.size());
-            } else {
-                line.setQuantity(newQuantity);
-                System.out.println("Quantity updated.");
-            }
+            setQuantity(line, line.getQuantity() + quantity);
         }
-        System.out.println("Finished addProduct for: " + productInfo.getCode());
     }
 
     public void validate() {
@@ -106,23 +111,48 @@ public class CartInfo {
         CartLineInfo line = this.findLineByCode(code);
 
         if (line != null) {
-            if (quantity <= 0) {
-                this.cartLines.remove(line);
-            } else {
-                line.setQuantity(quantity);
-            }
+            setQuantity(line, quantity);
+        }
+    }
+
+    private void setQuantity(CartLineInfo line, int quantity) {
+        if (quantity <= 0) {
+            this.cartLines.remove(line.getProductInfo().getCode());
+            subtract(line);
+        } else {
+            this.totalCents += line.getUnitPriceCents() * (quantity - line.getQuantity());
+            this.totalQuantity += quantity - line.getQuantity();
+            line.setQuantity(quantity);
         }
     }
 
+    private void subtract(CartLineInfo line) {
+        this.totalCents -= line.getAmountCents();
+        this.totalQuantity -= line.getQuantity();
+    }
+
     public void removeProduct(ProductInfo productInfo) {
-        CartLineInfo line = this.findLineByCode(productInfo.getCode());
-        if (line != null) {
-            this.cartLines.remove(line);
+        removeProduct(productInfo.getCode());
+    }
+
+    public boolean removeProduct(String code) {
+        CartLineInfo line = this.cartLines.remove(code);
+        if (line == null) {
+            return false;
         }
+        subtract(line);
+        return true;
+    }
+
+    public void clear() {
+        this.cartLines.clear();
+        this.customerInfo = null;
+        this.totalCents = 0;
+        this.totalQuantity = 0;
     }
 
     public boolean isEmpty() {
-        return cartLines == null || cartLines.isEmpty();
+        return cartLines.isEmpty();
     }
 
     public boolean isValidCustomer() {
@@ -130,19 +160,11 @@ public class CartInfo {
     }
 
     public int getQuantityTotal() {
-        int quantity = 0;
-        for (CartLineInfo line : this.cartLines) {
-            quantity += line.getQuantity();
-        }
-        return quantity;
+        return totalQuantity;
     }
 
     public double getAmountTotal() {
-        double total = 0;
-        for (CartLineInfo line : this.cartLines) {
-            total += line.getAmount();
-        }
-        return total;
+        return getTotalAmount();
     }
 
     public void updateQuantity(CartInfo cartForm) {
@@ -158,4 +180,23 @@ public class CartInfo {
         }
     }
 
+    /**
+     * Copy of this cart that can be read or serialized while the original keeps changing.
+     * Product details are shared, quantities are not.
+     */
+    public CartInfo copy() {
+        CartInfo copy = new CartInfo();
+        copy.orderNum = this.orderNum;
+        copy.customerInfo = this.customerInfo;
+        copy.totalCents = this.totalCents;
+        copy.totalQuantity = this.totalQuantity;
+        for (CartLineInfo line : this.cartLines.values()) {
+            CartLineInfo lineCopy = new CartLineInfo();
+            lineCopy.setProductInfo(line.getProductInfo());
+            lineCopy.setQuantity(line.getQuantity());
+            copy.cartLines.put(line.getProductInfo().getCode(), lineCopy);
+        }
+        return copy;
+    }
+
 }
@@ -1,9 +1,15 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 public class CartLineInfo {
 	 
     private ProductInfo productInfo;
     private int quantity;
+    private long unitPriceCents;
  
     public CartLineInfo() {
         this.quantity = 0;
@@ -15,6 +21,7 @@ public class CartLineInfo {
  
     public void setProductInfo(ProductInfo productInfo) {
         this.productInfo = productInfo;
+        this.unitPriceCents = productInfo != null ? toCents(productInfo.getPrice()) : 0;
     }
  
     public int getQuantity() {
@@ -25,8 +32,26 @@ public class CartLineInfo {
         this.quantity = quantity;
     }
  
+    @JsonIgnore
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    @JsonIgnore
+    public long getAmountCents() {
+        return this.unitPriceCents * this.quantity;
+    }
+
     public double getAmount() {
-        return this.productInfo.getPrice() * this.quantity;
+        return getAmountCents() / 100.0;
+    }
+
+    /**
+     * Prices are kept as doubles on the product; carts add them up as whole cents. Rounds the
+     * decimal the double stands for, so 1.005 becomes 101 cents, not 100.
+     */
+    public static long toCents(double price) {
+        return BigDecimal.valueOf(price).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
     }
-    
+
 }
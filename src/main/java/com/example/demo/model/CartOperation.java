@@ -0,0 +1,45 @@
+package com.example.demo.model;
+
+/**
+ * One step of a batch cart update: {@code add} (quantity is added, may be negative),
+ * {@code update} (quantity is set, 0 removes the line), {@code remove} or {@code clear}.
+ */
+public class CartOperation {
+
+    private String op;
+    private String code;
+    private Integer quantity;
+
+    public CartOperation() {
+    }
+
+    public CartOperation(String op, String code, Integer quantity) {
+        this.op = op;
+        this.code = code;
+        this.quantity = quantity;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.model;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * A page of results together with per-dimension facet counts over the whole result set
+ * (dimension -&gt; value -&gt; count). Facets are empty when they were not requested or
+ * could not be computed.
+ */
+public class FacetedPage<T> extends PageImpl<T> {
+
+    private final Map<String, Map<String, Integer>> facets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total, Map<String, Map<String, Integer>> facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Facet filters for the product listing. Values within one dimension are OR-ed,
+ * dimensions are AND-ed; string values are matched case-insensitively.
+ */
+public class ProductFilter {
+
+    private List<String> types = new ArrayList<>();
+    private List<String> breeds = new ArrayList<>();
+    private List<String> genders = new ArrayList<>();
+    private List<String> statuses = new ArrayList<>();
+    private Double minPrice;
+    private Double maxPrice;
+
+    public ProductFilter() {
+    }
+
+    public List<String> getTypes() {
+        return types;
+    }
+
+    public void setTypes(List<String> types) {
+        this.types = types != null ? types : new ArrayList<>();
+    }
+
+    public List<String> getBreeds() {
+        return breeds;
+    }
+
+    public void setBreeds(List<String> breeds) {
+        this.breeds = breeds != null ? breeds : new ArrayList<>();
+    }
+
+    public List<String> getGenders() {
+        return genders;
+    }
+
+    public void setGenders(List<String> genders) {
+        this.genders = genders != null ? genders : new ArrayList<>();
+    }
+
+    public List<String> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<String> statuses) {
+        this.statuses = statuses != null ? statuses : new ArrayList<>();
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    public boolean isEmpty() {
+        return types.isEmpty() && breeds.isEmpty() && genders.isEmpty() && statuses.isEmpty() && !hasPriceRange();
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.demo.model;
 
 import com.example.demo.entity.Product;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+import java.util.TreeMap;
 
 public class ProductInfo {
     private String code;
@@ -13,6 +17,8 @@ public class ProductInfo {
     private String gender;
     private String description;
     private String status;
+    private String thumbnailPath;
+    private Map<Integer, String> imageVariants;
 
     public ProductInfo() {
     }
@@ -28,6 +34,35 @@ public class ProductInfo {
         this.gender = product.getGender();
         this.description = product.getDescription();
         this.status = product.getStatus();
+        setVariants(product.getImagePath(), product.getImageVariants());
+    }
+
+    /**
+     * Path of an image derived from a stored one: {@code /product-images/abc.jpg} with
+     * {@code w320.jpg} gives {@code /product-images/abc-w320.jpg}.
+     */
+    public static String derivedImagePath(String imagePath, String name) {
+        int lastSlash = imagePath.lastIndexOf('/');
+        int lastDot = imagePath.lastIndexOf('.');
+        String base = lastDot > lastSlash ? imagePath.substring(0, lastDot) : imagePath;
+        return base + "-" + name;
+    }
+
+    private void setVariants(String imagePath, String variants) {
+        if (imagePath == null || variants == null || variants.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> widths = new TreeMap<>();
+        for (String name : variants.split(",")) {
+            if (name.startsWith("thumb.")) {
+                thumbnailPath = derivedImagePath(imagePath, name);
+            } else if (name.startsWith("w")) {
+                int dot = name.indexOf('.');
+                widths.put(Integer.parseInt(name.substring(1, dot == -1 ? name.length() : dot)),
+                        derivedImagePath(imagePath, name));
+            }
+        }
+        imageVariants = widths.isEmpty() ? null : widths;
     }
 
     public String getCode() {
@@ -109,4 +144,28 @@ public class ProductInfo {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    /**
+     * Small image for cards and lists, or {@code null} until it has been generated.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+
+    public void setThumbnailPath(String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+    }
+
+    /**
+     * Scaled-down copies of the image by width, for {@code srcset}; {@code null} until generated.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Map<Integer, String> getImageVariants() {
+        return imageVariants;
+    }
+
+    public void setImageVariants(Map<Integer, String> imageVariants) {
+        this.imageVariants = imageVariants;
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * A {@link ProductInfo} serialized once. It is written into a response as it is, so a list of
+ * these costs a copy of the encoded bytes per product instead of a reflective serialization.
+ */
+public final class ProductJson implements JsonSerializable {
+
+    // Keeps its UTF-8 encoding after the first write, which byte-based generators copy directly
+    private final SerializedString json;
+
+    private ProductJson(String json) {
+        this.json = new SerializedString(json);
+    }
+
+    public static ProductJson render(ObjectWriter writer, ProductInfo product) throws JsonProcessingException {
+        return new ProductJson(writer.writeValueAsString(product));
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return json.getValue();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.model;
+
+import com.example.demo.entity.Reservation.ReservationStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filters for the admin reservation listing. Statuses are OR-ed, everything else is AND-ed;
+ * the date range is inclusive on both ends and {@code customer} matches a part of the
+ * customer name or email, ignoring case.
+ */
+public class ReservationFilter {
+
+    private List<ReservationStatus> statuses = new ArrayList<>();
+    private LocalDate from;
+    private LocalDate to;
+    private String customer;
+
+    public ReservationFilter() {
+    }
+
+    public List<ReservationStatus> getStatuses() {
+        return statuses;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a value is missing or not a reservation status
+     */
+    public void setStatuses(List<String> statuses) {
+        this.statuses = new ArrayList<>();
+        if (statuses == null) {
+            return;
+        }
+        for (String status : statuses) {
+            if (status == null || status.trim().isEmpty()) {
+                throw new IllegalArgumentException("Status must not be empty. Must be one of: PENDING, ACCEPTED, REJECTED");
+            }
+            try {
+                this.statuses.add(ReservationStatus.valueOf(status.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status: " + status + ". Must be one of: PENDING, ACCEPTED, REJECTED");
+            }
+        }
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(String customer) {
+        this.customer = customer != null && !customer.trim().isEmpty() ? customer.trim() : null;
+    }
+
+    public boolean isEmpty() {
+        return statuses.isEmpty() && from == null && to == null && customer == null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.model;
+
+import com.example.demo.entity.Reservation.ReservationStatus;
+
+import java.util.Date;
+
+/**
+ * Read-only row of the admin reservation listing, selected in a single query together with
+ * the code and name of the reserved product. Field names match the {@code Reservation} JSON
+ * the dashboard used to receive, without the embedded product.
+ */
+public class ReservationSummary {
+
+    private final Long id;
+    private final String customerName;
+    private final String customerEmail;
+    private final String customerPhone;
+    private final String customerAddress;
+    private final String preferredVisitDate;
+    private final String message;
+    private final Date reservationDate;
+    private final ReservationStatus status;
+    private final String productCode;
+    private final String productName;
+    private final String reservedItemsDetails;
+
+    public ReservationSummary(Long id, String customerName, String customerEmail, String customerPhone,
+                              String customerAddress, String preferredVisitDate, String message,
+                              Date reservationDate, ReservationStatus status, String productCode,
+                              String productName, String reservedItemsDetails) {
+        this.id = id;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.customerPhone = customerPhone;
+        this.customerAddress = customerAddress;
+        this.preferredVisitDate = preferredVisitDate;
+        this.message = message;
+        this.reservationDate = reservationDate;
+        this.status = status;
+        this.productCode = productCode;
+        this.productName = productName;
+        this.reservedItemsDetails = reservedItemsDetails;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public String getCustomerPhone() {
+        return customerPhone;
+    }
+
+    public String getCustomerAddress() {
+        return customerAddress;
+    }
+
+    public String getPreferredVisitDate() {
+        return preferredVisitDate;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Date getReservationDate() {
+        return reservationDate;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getReservedItemsDetails() {
+        return reservedItemsDetails;
+    }
+}
@@ -4,11 +4,69 @@ import com.example.demo.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, String> {
     
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
-    
+
+    boolean existsByImagePath(String imagePath);
+
+    List<Product> findByImagePath(String imagePath);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.imageVariants = :variants where p.imagePath = :imagePath")
+    int updateImageVariants(@Param("imagePath") String imagePath, @Param("variants") String variants);
+
+    /**
+     * Set the status of every product reserved by a reservation in one statement and release its
+     * holds; {@code holder} stays as the reservation that adopted the pet, or {@code null}.
+     * Pets meanwhile held or adopted by another reservation are left alone, so fewer rows than
+     * the reservation has pets means it lost some. Bypasses the entity listeners; callers run
+     * it through {@link com.example.demo.dao.ProductBulkUpdate}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.status = :status, p.holdReservationId = :holder, p.heldUntil = null,"
+            + " p.version = p.version + 1 where p.code in "
+            + "(select i.product.code from ReservationItem i where i.reservation.id = :reservationId)"
+            + " and (p.holdReservationId = :reservationId"
+            + " or (p.holdReservationId is null and (p.status is null or p.status <> 'ADOPTED')))")
+    int updateStatusByReservation(@Param("reservationId") Long reservationId, @Param("status") String status,
+                                  @Param("holder") Long holder);
+
+    /**
+     * Hold a pet for a reservation unless it is adopted, held by an unexpired hold, or changed
+     * since it was read at {@code version}. A single conditional update, so concurrent
+     * checkouts of the same pet never both succeed and the loser is not kept waiting.
+     *
+     * @return 1 if the hold was taken, 0 if the pet is not available or has changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.holdReservationId = :reservationId, p.heldUntil = :until,"
+            + " p.version = p.version + 1 where p.code = :code and p.version = :version"
+            + " and (p.status is null or p.status <> 'ADOPTED')"
+            + " and (p.heldUntil is null or p.heldUntil < :now)")
+    int hold(@Param("code") String code, @Param("version") long version, @Param("reservationId") Long reservationId,
+             @Param("until") Date until, @Param("now") Date now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.holdReservationId = null, p.heldUntil = null, p.version = p.version + 1"
+            + " where p.holdReservationId = :reservationId")
+    int releaseHolds(@Param("reservationId") Long reservationId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.holdReservationId = null, p.heldUntil = null, p.version = p.version + 1"
+            + " where p.heldUntil < :now")
+    int releaseExpiredHolds(@Param("now") Date now);
+
+    @Query("select p from Product p where p.code in "
+            + "(select i.product.code from ReservationItem i where i.reservation.id = :reservationId)")
+    List<Product> findByReservation(@Param("reservationId") Long reservationId);
 }
@@ -1,13 +1,28 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Reservation;
+import com.example.demo.entity.Reservation.ReservationStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
     // Custom query methods can be added here if needed
+    @EntityGraph(attributePaths = "product")
     List<Reservation> findByCustomerEmail(String customerEmail);
+
+    @EntityGraph(attributePaths = "product")
+    List<Reservation> findByCustomerEmailAndStatus(String customerEmail, ReservationStatus status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Reservation r where r.customerEmail = :customerEmail and r.status in :statuses")
+    int deleteByCustomerEmailAndStatusIn(@Param("customerEmail") String customerEmail,
+                                         @Param("statuses") Collection<ReservationStatus> statuses);
 } 
\ No newline at end of file
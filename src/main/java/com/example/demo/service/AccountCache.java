@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import com.example.demo.dao.AccountChangedEvent;
+import com.example.demo.entity.Account;
+import com.example.demo.model.AccountInfo;
+import com.example.demo.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts by email for authentication and {@code /api/user}, so repeated logins and the
+ * React app polling the current user do not query the database every time.
+ *
+ * Entries expire after {@code account.cache.ttl-seconds} and are dropped as soon as a write
+ * to the account commits ({@link AccountChangedEvent}). Unknown emails are cached as well, so
+ * a burst of logins with a wrong address costs one query. Only an immutable copy of the
+ * account is kept: callers build their own objects from it, since Spring Security erases the
+ * password of the UserDetails it authenticated.
+ */
+@Service
+public class AccountCache {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Value("${account.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${account.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${account.cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Moves on with every invalidation, so a load that raced a write does not stay cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * The account with this email, or {@code null} if there is none.
+     */
+    public CachedAccount find(String email) {
+        if (!enabled) {
+            return load(email);
+        }
+        long now = System.nanoTime();
+        Entry entry = entries.get(email);
+        if (entry != null && now - entry.loadedAt() < TimeUnit.SECONDS.toNanos(ttlSeconds)) {
+            hits.incrementAndGet();
+            return entry.account();
+        }
+        misses.incrementAndGet();
+
+        long loadedGeneration = generation.get();
+        CachedAccount account = load(email);
+        if (entries.size() >= maxEntries) {
+            evictExpired(now);
+        }
+        Entry loaded = new Entry(account, now);
+        entries.put(email, loaded);
+        if (generation.get() != loadedGeneration) {
+            entries.remove(email, loaded);
+        }
+        return account;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        generation.incrementAndGet();
+        entries.remove(event.getEmail());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    private CachedAccount load(String email) {
+        return accountRepository.findById(email).map(CachedAccount::new).orElse(null);
+    }
+
+    private void evictExpired(long now) {
+        long ttl = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        entries.values().removeIf(entry -> now - entry.loadedAt() >= ttl);
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * What authentication and the account endpoints need of an account.
+     */
+    public record CachedAccount(AccountInfo info, String password, boolean active) {
+
+        CachedAccount(Account account) {
+            this(new AccountInfo(account), account.getPassword(), account.isActive());
+        }
+    }
+
+    private record Entry(CachedAccount account, long loadedAt) {
+    }
+}
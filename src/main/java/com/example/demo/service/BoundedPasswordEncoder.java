@@ -0,0 +1,188 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a small dedicated pool. Hashing is deliberately slow and CPU-bound; run on the
+ * request threads, a login burst would occupy all of them and starve every other page. Here
+ * at most {@code threads} hashes run at a time and at most {@code queueCapacity} callers
+ * wait for one, so logins can only ever hold that many request threads. Beyond that
+ * {@link #matches} and {@link #encode} fail fast with a {@link RejectedExecutionException},
+ * which the API answers with 503 and Retry-After.
+ *
+ * Hashes of another cost than the configured one report {@link #upgradeEncoding}, so the
+ * authentication provider rehashes the password on the next successful login. The password
+ * was already verified by then, so that rehash is never rejected: it is skipped while the pool
+ * is saturated, and run on the caller's thread if the pool fills up in between.
+ *
+ * The time spent hashing and waiting for a worker are {@link Timer}s, registered with the
+ * application's registry by {@link #bindTo}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[abxy]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor workers;
+
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder encodings = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    // Set by upgradeEncoding for the rehash the authentication provider encodes next
+    private final ThreadLocal<Boolean> upgrading = new ThreadLocal<>();
+
+    private volatile Timer verifyTimer;
+    private volatile Timer encodeTimer;
+    private volatile Timer waitTimer;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        bindTo(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Records the hashing and waiting times in the registry from now on.
+     */
+    public void bindTo(MeterRegistry registry) {
+        verifyTimer = timer(registry, "password.hashing.duration", "verify");
+        encodeTimer = timer(registry, "password.hashing.duration", "encode");
+        waitTimer = timer(registry, "password.hashing.wait", null);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        encodings.increment();
+        boolean upgrade = upgrading.get() != null;
+        upgrading.remove();
+        return run(() -> delegate.encode(rawPassword), encodeTimer, upgrade);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        verifications.increment();
+        return run(() -> delegate.matches(rawPassword, encodedPassword), verifyTimer, false);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        if (!matcher.find() || Integer.parseInt(matcher.group(1)) == strength) {
+            return false;
+        }
+        if (workers.getQueue().remainingCapacity() == 0) {
+            // Saturated: keep the old hash, the next login upgrades it
+            return false;
+        }
+        upgrading.set(Boolean.TRUE);
+        return true;
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("strength", strength);
+        stats.put("threads", workers.getMaximumPoolSize());
+        stats.put("active", workers.getActiveCount());
+        stats.put("queued", workers.getQueue().size());
+        stats.put("verifications", verifications.sum());
+        stats.put("encodings", encodings.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("avgVerifyMillis", verifyTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxVerifyMillis", verifyTimer.max(TimeUnit.MILLISECONDS));
+        stats.put("avgEncodeMillis", encodeTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxEncodeMillis", encodeTimer.max(TimeUnit.MILLISECONDS));
+        stats.put("avgWaitMillis", waitTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxWaitMillis", waitTimer.max(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+
+    /**
+     * Hashes on a worker and waits for it. A rejected hash fails, unless it is a rehash after a
+     * successful login, which then runs here.
+     */
+    private <T> T run(Callable<T> hash, Timer hashTimer, boolean upgrade) {
+        long submitted = System.nanoTime();
+        Callable<T> timed = () -> {
+            long started = System.nanoTime();
+            waitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+            try {
+                return hash.call();
+            } finally {
+                hashTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        };
+        Future<T> result;
+        try {
+            result = workers.submit(timed);
+        } catch (RejectedExecutionException e) {
+            if (upgrade) {
+                try {
+                    return timed.call();
+                } catch (RuntimeException cause) {
+                    throw cause;
+                } catch (Exception cause) {
+                    throw new IllegalStateException(cause);
+                }
+            }
+            rejected.increment();
+            throw new RejectedExecutionException("Password hashing is saturated");
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String operation) {
+        Timer.Builder builder = Timer.builder(name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10));
+        if (operation != null) {
+            builder.tag("operation", operation);
+        }
+        return builder.register(registry);
+    }
+}
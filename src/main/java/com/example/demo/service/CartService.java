@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
+import com.example.demo.dao.ProductDAO;
 import com.example.demo.model.CartInfo;
 import com.example.demo.model.CartLineInfo;
+import com.example.demo.model.CartOperation;
 import com.example.demo.model.ProductInfo;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.PersistentCart;
@@ -11,57 +13,152 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class CartService {
 
     private static final Logger logger = LoggerFactory.getLogger(CartService.class);
-    private static final String CART_SESSION_KEY = "myCart";
+    private static final String CART_KEY_ATTRIBUTE = "cartKey";
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final String SESSION_KEY_PREFIX = "session:";
+    private static final Set<String> OPERATIONS = Set.of("add", "update", "remove", "clear");
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductDAO productDAO;
+
     @Autowired
     private PersistentCartRepository persistentCartRepository;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartWriteBehind cartWriteBehind;
+
+    @Value("${cart.write-behind.enabled:true}")
+    private boolean writeBehindEnabled;
+
     /**
-     * Get the shopping cart from the HTTP session.
-     * If it doesn't exist, create a new one and save it.
+     * Get a snapshot of the shopping cart of the current user (or session).
+     * If it doesn't exist yet, it is restored from persistent storage or created empty.
+     * Changes to the returned copy are not kept; use the update methods below.
      */
     public CartInfo getCartInSession(HttpServletRequest request) {
-        HttpSession session = request.getSession();
-        CartInfo cartInfo = (CartInfo) session.getAttribute(CART_SESSION_KEY);
+        String userId = getUserId(request);
+        return cartStore.snapshot(cartKey(request, userId), () -> loadCart(userId));
+    }
+
+    /**
+     * Apply a change to the cart atomically with respect to other requests of the same user,
+     * persist the result and return a snapshot of it.
+     */
+    public CartInfo updateCart(HttpServletRequest request, Consumer<CartInfo> change) {
+        String userId = getUserId(request);
+        return updateCart(cartKey(request, userId), userId, change);
+    }
 
-        if (cartInfo == null) {
-            // Try to load from persistent storage if user is logged in
-            String userId = getUserIdFromSession(session);
-            if (userId != null) {
-                cartInfo = loadCartFromPersistentStorage(userId);
+    private CartInfo updateCart(String key, String userId, Consumer<CartInfo> change) {
+        return cartStore.update(key, () -> loadCart(userId), cartInfo -> {
+            change.accept(cartInfo);
+            CartInfo snapshot = cartInfo.copy();
+            // Under the cart lock so snapshots are queued or written in order
+            if (userId != null && writeBehindEnabled) {
+                cartWriteBehind.enqueue(userId, snapshot);
+            } else {
+                persist(userId, snapshot);
             }
-            
-            if (cartInfo == null) {
-                cartInfo = new CartInfo();
+            return snapshot;
+        });
+    }
+
+    private String cartKey(HttpServletRequest request, String userId) {
+        HttpSession session = request.getSession();
+        String key = userId != null ? USER_KEY_PREFIX + userId : SESSION_KEY_PREFIX + session.getId();
+        Object previous = session.getAttribute(CART_KEY_ATTRIBUTE);
+        if (!key.equals(previous)) {
+            // Remembered so the cart can be evicted when the session ends
+            session.setAttribute(CART_KEY_ATTRIBUTE, key);
+            if (previous != null) {
+                switchCart((String) previous, key, userId);
             }
-            session.setAttribute(CART_SESSION_KEY, cartInfo);
         }
+        return key;
+    }
 
-        return cartInfo;
+    /**
+     * The session now uses another cart, as after signing in: the cart it used is dropped from
+     * memory (a user's cart is persisted) and an anonymous one is added to the user's cart, so
+     * what was picked before signing in is kept.
+     */
+    private void switchCart(String previousKey, String key, String userId) {
+        CartInfo previous = cartStore.remove(previousKey);
+        if (previous == null || previous.isEmpty() || userId == null || !previousKey.startsWith(SESSION_KEY_PREFIX)) {
+            return;
+        }
+        updateCart(key, userId, cartInfo -> {
+            for (CartLineInfo line : previous.getCartLines()) {
+                cartInfo.addProduct(line.getProductInfo(), line.getQuantity());
+            }
+        });
     }
 
-    private String getUserIdFromSession(HttpSession session) {
-        // Get user ID from session - implement based on your authentication system
-        return (String) session.getAttribute("userId");
+    /**
+     * Evict the in-memory cart of an ended session; user carts are reloaded from
+     * persistent storage on the next request.
+     */
+    public void evictCart(HttpSession session) {
+        Object key = session.getAttribute(CART_KEY_ATTRIBUTE);
+        if (key != null) {
+            cartStore.remove((String) key);
+        }
+    }
+
+    private String getUserId(HttpServletRequest request) {
+        HttpSession session = request.getSession();
+        String userId = (String) session.getAttribute("userId");
+        if (userId != null) {
+            return userId;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return authentication.getName();
+        }
+        return null;
+    }
+
+    private CartInfo loadCart(String userId) {
+        if (userId == null) {
+            return null;
+        }
+        // A cart evicted from memory may not have been written yet
+        CartInfo pending = cartWriteBehind.pendingSnapshot(userId);
+        if (pending != null) {
+            return pending.isEmpty() ? null : pending.copy();
+        }
+        return loadCartFromPersistentStorage(userId);
     }
 
     private CartInfo loadCartFromPersistentStorage(String userId) {
@@ -69,9 +166,9 @@ public class CartService {
             return persistentCartRepository.findByUserId(userId)
                 .map(persistentCart -> {
                     try {
-                        CartInfo loaded = objectMapper.readValue(persistentCart.getCartData(), CartInfo.class);
+                        CartInfo loaded = rehydrate(readLines(persistentCart));
                         // Only restore if not empty
-                        if (loaded == null || loaded.isEmpty()) {
+                        if (loaded.isEmpty()) {
                             return null;
                         }
                         return loaded;
@@ -87,14 +184,38 @@ public class CartService {
         }
     }
 
+    private List<CartSnapshotCodec.Line> readLines(PersistentCart persistentCart) throws Exception {
+        if (persistentCart.getCartSnapshot() != null) {
+            return CartSnapshotCodec.decode(persistentCart.getCartSnapshot());
+        }
+        // Legacy row with the whole cart as JSON
+        CartInfo legacy = objectMapper.readValue(persistentCart.getCartData(), CartInfo.class);
+        return CartSnapshotCodec.decode(CartSnapshotCodec.encode(legacy));
+    }
+
+    /**
+     * Rebuild a cart from stored lines with the current product details and prices from the
+     * catalog; products that no longer exist are dropped.
+     */
+    private CartInfo rehydrate(List<CartSnapshotCodec.Line> lines) {
+        CartInfo cartInfo = new CartInfo();
+        for (CartSnapshotCodec.Line line : lines) {
+            ProductInfo productInfo = productDAO.findProductInfo(line.code());
+            if (productInfo != null) {
+                cartInfo.addProduct(productInfo, line.quantity());
+            }
+        }
+        return cartInfo;
+    }
+
     public void saveCartToPersistentStorage(String userId, CartInfo cartInfo) {
         try {
-            String cartData = objectMapper.writeValueAsString(cartInfo);
             PersistentCart persistentCart = persistentCartRepository.findByUserId(userId)
                 .orElse(new PersistentCart());
-            
+
             persistentCart.setUserId(userId);
-            persistentCart.setCartData(cartData);
+            persistentCart.setCartSnapshot(CartSnapshotCodec.encode(cartInfo));
+            persistentCart.setCartData(null);
             persistentCartRepository.save(persistentCart);
         } catch (Exception e) {
             logger.error("Error saving cart to persistent storage", e);
@@ -102,15 +223,19 @@ public class CartService {
     }
 
     /**
-     * Remove the shopping cart from the session.
+     * Remove the shopping cart of the current user (or session).
      */
     public void removeCartInSession(HttpServletRequest request) {
-        HttpSession session = request.getSession();
-        String userId = getUserIdFromSession(session);
-        if (userId != null) {
-            persistentCartRepository.deleteByUserId(userId);
-        }
-        session.removeAttribute(CART_SESSION_KEY);
+        String userId = getUserId(request);
+        cartStore.update(cartKey(request, userId), CartInfo::new, cartInfo -> {
+            cartInfo.clear();
+            if (userId != null && writeBehindEnabled) {
+                cartWriteBehind.enqueueDelete(userId);
+            } else if (userId != null) {
+                persistentCartRepository.deleteByUserId(userId);
+            }
+            return null;
+        });
     }
 
     /**
@@ -127,93 +252,104 @@ public class CartService {
         return (CartInfo) request.getSession().getAttribute("lastOrderedCart");
     }
 
-    public void addProductToCart(String productCode, int quantity, HttpServletRequest request) {
+    public CartInfo addProductToCart(String productCode, int quantity, HttpServletRequest request) {
         Product product = productRepository.findById(productCode)
                 .orElseThrow(() -> new RuntimeException("Product not found: " + productCode));
+        ProductInfo productInfo = new ProductInfo(product);
 
-        CartInfo cartInfo = getCartInSession(request);
-        CartLineInfo line = findLineByCode(cartInfo, productCode);
-
-        if (line == null) {
-            line = new CartLineInfo();
-            ProductInfo productInfo = new ProductInfo(product);
-            line.setProductInfo(productInfo);
-            line.setQuantity(quantity);
-            cartInfo.getCartLines().add(line);
-        } else {
-            line.setQuantity(line.getQuantity() + quantity);
-        }
-
-        updateCartTotals(cartInfo);
-        
-        // Save to persistent storage if user is logged in
-        String userId = getUserIdFromSession(request.getSession());
-        if (userId != null) {
-            saveCartToPersistentStorage(userId, cartInfo);
-        }
+        return updateCart(request, cartInfo -> cartInfo.addProduct(productInfo, quantity));
     }
 
-    public void updateProductQuantity(String productCode, int quantity, HttpServletRequest request) {
-        CartInfo cartInfo = getCartInSession(request);
-        CartLineInfo line = findLineByCode(cartInfo, productCode);
-
-        if (line != null) {
-            if (quantity <= 0) {
-                cartInfo.getCartLines().remove(line);
-            } else {
-                line.setQuantity(quantity);
-            }
-            updateCartTotals(cartInfo);
-        }
+    public CartInfo updateProductQuantity(String productCode, int quantity, HttpServletRequest request) {
+        return updateCart(request, cartInfo -> cartInfo.updateProduct(productCode, quantity));
     }
 
-    public void removeProduct(String productCode, HttpServletRequest request) {
+    public CartInfo removeProduct(String productCode, HttpServletRequest request) {
         if (productCode == null || productCode.trim().isEmpty()) {
             throw new IllegalArgumentException("Product code cannot be null or empty");
         }
 
-        CartInfo cartInfo = getCartInSession(request);
-        if (cartInfo == null) {
-            throw new IllegalStateException("Cart not found in session");
-        }
+        return updateCart(request, cartInfo -> {
+            if (!cartInfo.removeProduct(productCode)) {
+                throw new IllegalArgumentException("Product not found in cart: " + productCode);
+            }
+        });
+    }
 
-        CartLineInfo line = findLineByCode(cartInfo, productCode);
-        if (line == null) {
-            throw new IllegalArgumentException("Product not found in cart: " + productCode);
+    /**
+     * Apply an ordered list of operations as one change: either all of them take effect or,
+     * if any is invalid, none does. Products referenced by {@code add} operations are fetched
+     * with a single query and the result is persisted once.
+     *
+     * @throws IllegalArgumentException if an operation is malformed or refers to an unknown product
+     */
+    public CartInfo applyOperations(List<CartOperation> operations, HttpServletRequest request) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No cart operations given");
         }
 
-        cartInfo.getCartLines().remove(line);
-        updateCartTotals(cartInfo);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperation operation = operations.get(i);
+            String op = operation != null ? operation.getOp() : null;
+            if (op == null || !OPERATIONS.contains(op)) {
+                throw new IllegalArgumentException("Unknown cart operation at index " + i + ": " + op);
+            }
+            if (op.equals("clear")) {
+                continue;
+            }
+            if (operation.getCode() == null || operation.getCode().trim().isEmpty()) {
+                throw new IllegalArgumentException("Product code is required for " + op + " at index " + i);
+            }
+            if (!op.equals("remove") && operation.getQuantity() == null) {
+                throw new IllegalArgumentException("Quantity is required for " + op + " at index " + i);
+            }
+            if (op.equals("add")) {
+                codes.add(operation.getCode());
+            }
+        }
 
-        // Persist the updated cart if user is logged in
-        String userId = getUserIdFromSession(request.getSession());
-        if (userId != null) {
-            if (cartInfo.isEmpty()) {
-                // If cart is empty, remove persistent cart
-                persistentCartRepository.deleteByUserId(userId);
-            } else {
-                saveCartToPersistentStorage(userId, cartInfo);
+        Map<String, ProductInfo> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(codes)) {
+            products.put(product.getCode(), new ProductInfo(product));
+        }
+        for (String code : codes) {
+            if (!products.containsKey(code)) {
+                throw new IllegalArgumentException("Product not found: " + code);
             }
         }
-    }
 
-    private CartLineInfo findLineByCode(CartInfo cartInfo, String productCode) {
-        return cartInfo.getCartLines().stream()
-                .filter(line -> line.getProductInfo().getCode().equals(productCode))
-                .findFirst()
-                .orElse(null);
+        return updateCart(request, cartInfo -> {
+            // Work on a copy so a failing operation leaves the cart untouched
+            CartInfo working = cartInfo.copy();
+            for (int i = 0; i < operations.size(); i++) {
+                CartOperation operation = operations.get(i);
+                switch (operation.getOp()) {
+                    case "add" -> working.addProduct(products.get(operation.getCode()), operation.getQuantity());
+                    case "update" -> working.updateProduct(operation.getCode(), operation.getQuantity());
+                    case "remove" -> {
+                        if (!working.removeProduct(operation.getCode())) {
+                            throw new IllegalArgumentException(
+                                    "Product not found in cart at index " + i + ": " + operation.getCode());
+                        }
+                    }
+                    default -> working.setCartLines(null);
+                }
+            }
+            cartInfo.setCartLines(working.getCartLines());
+        });
     }
 
-    private void updateCartTotals(CartInfo cartInfo) {
-        double total = 0;
-        int quantity = 0;
-
-        for (CartLineInfo line : cartInfo.getCartLines()) {
-            total += line.getAmount();
-            quantity += line.getQuantity();
+    private void persist(String userId, CartInfo cartInfo) {
+        // Persist the updated cart if user is logged in
+        if (userId == null) {
+            return;
+        }
+        if (cartInfo.isEmpty()) {
+            // If cart is empty, remove persistent cart
+            persistentCartRepository.deleteByUserId(userId);
+        } else {
+            saveCartToPersistentStorage(userId, cartInfo);
         }
-
-        cartInfo.setTotalAmount(total);
-        cartInfo.setTotalQuantity(quantity);
     }
 }
@@ -0,0 +1,21 @@
+package com.example.demo.service;
+
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Releases the in-memory cart of a session when it is invalidated or times out.
+ */
+@Component
+public class CartSessionListener implements HttpSessionListener {
+
+    @Autowired
+    private CartService cartService;
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        cartService.evictCart(event.getSession());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CartInfo;
+import com.example.demo.model.CartLineInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of a persistent cart: only product codes, quantities and the price
+ * (in cents) at the time of the snapshot. Product details are looked up again on load.
+ *
+ * Layout (version 1): version byte, varint line count, then per line a varint-prefixed
+ * UTF-8 code, a varint quantity and a zigzag varint price in cents.
+ */
+public final class CartSnapshotCodec {
+
+    public static final int VERSION = 1;
+
+    private CartSnapshotCodec() {
+    }
+
+    /**
+     * One decoded cart line.
+     */
+    public record Line(String code, int quantity, long priceCents) {
+    }
+
+    public static byte[] encode(CartInfo cartInfo) {
+        List<CartLineInfo> lines = cartInfo.getCartLines();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + lines.size() * 16);
+        out.write(VERSION);
+        writeVarint(out, lines.size());
+        for (CartLineInfo line : lines) {
+            byte[] code = line.getProductInfo().getCode().getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, code.length);
+            out.write(code, 0, code.length);
+            writeVarint(out, line.getQuantity());
+            long cents = line.getUnitPriceCents();
+            writeVarint(out, (cents << 1) ^ (cents >> 63));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the data is truncated or of an unknown version
+     */
+    public static List<Line> decode(byte[] data) {
+        Reader in = new Reader(data);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported cart snapshot version: " + version);
+        }
+        int count = (int) in.readVarint();
+        List<Line> lines = new ArrayList<>(Math.min(count, 256));
+        for (int i = 0; i < count; i++) {
+            String code = in.readString((int) in.readVarint());
+            int quantity = (int) in.readVarint();
+            long zigzag = in.readVarint();
+            lines.add(new Line(code, quantity, (zigzag >>> 1) ^ -(zigzag & 1)));
+        }
+        return lines;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (pos >= data.length) {
+                throw new IllegalArgumentException("Truncated cart snapshot");
+            }
+            return data[pos++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in cart snapshot");
+        }
+
+        String readString(int length) {
+            if (length < 0 || length > data.length - pos) {
+                throw new IllegalArgumentException("Truncated cart snapshot");
+            }
+            String value = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
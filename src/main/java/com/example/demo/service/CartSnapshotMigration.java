@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CartInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts persistent carts still stored as legacy JSON into {@link CartSnapshotCodec}
+ * snapshots, in pages, once the application is up. Rows that were rewritten in the meantime
+ * are left alone; rows that cannot be parsed are logged and kept as they are (they are still
+ * readable by {@link CartService}).
+ */
+@Component
+public class CartSnapshotMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartSnapshotMigration.class);
+
+    private static final String SELECT_SQL = "select id, cart_data from persistent_carts "
+            + "where cart_snapshot is null and cart_data is not null and id > ? order by id limit ?";
+    private static final String UPDATE_SQL = "update persistent_carts set cart_snapshot = ?, cart_data = null "
+            + "where id = ? and cart_snapshot is null";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${cart.snapshot.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Value("${cart.snapshot.migration-page-size:500}")
+    private int pageSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    /**
+     * @return the number of carts converted
+     */
+    public int migrate() {
+        long lastId = 0;
+        int migrated = 0;
+        int failed = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_SQL, lastId, pageSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                long id = ((Number) row.get("id")).longValue();
+                lastId = id;
+                try {
+                    CartInfo cartInfo = objectMapper.readValue((String) row.get("cart_data"), CartInfo.class);
+                    updates.add(new Object[]{CartSnapshotCodec.encode(cartInfo), id});
+                } catch (Exception e) {
+                    failed++;
+                    logger.warn("Cannot convert legacy cart {}: {}", id, e.getMessage());
+                }
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+                migrated += updates.size();
+            }
+        }
+        if (migrated > 0 || failed > 0) {
+            logger.info("Converted {} legacy JSON carts to binary snapshots, {} left as JSON", migrated, failed);
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CartInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory home of the live shopping carts, keyed by cart owner. Replaces the mutable
+ * {@link CartInfo} that used to sit in the HTTP session, where two tabs of the same user
+ * could interleave read-modify-write cycles on the same lists.
+ *
+ * Every read or change of a cart runs under one of a fixed set of striped locks, so
+ * requests for the same cart are serialized while different carts rarely contend.
+ * Callers never get the live cart back, only {@link CartInfo#copy() copies}.
+ */
+@Component
+public class CartStore {
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentHashMap<String, CartInfo> carts = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public CartStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Apply {@code action} to the cart of {@code key} while holding its lock. A missing cart
+     * is created from {@code loader} (or empty if that returns {@code null}) under the same
+     * lock. The action must not let the live cart escape; return a {@link CartInfo#copy()}.
+     */
+    public <T> T update(String key, Supplier<CartInfo> loader, Function<CartInfo, T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            CartInfo cart = carts.get(key);
+            if (cart == null) {
+                cart = loader != null ? loader.get() : null;
+                if (cart == null) {
+                    cart = new CartInfo();
+                }
+                carts.put(key, cart);
+            }
+            return action.apply(cart);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Consistent copy of the cart of {@code key}, loading it first if needed.
+     */
+    public CartInfo snapshot(String key, Supplier<CartInfo> loader) {
+        return update(key, loader, CartInfo::copy);
+    }
+
+    /**
+     * Drop the cart of {@code key}, returning the last state or {@code null} if it was not loaded.
+     */
+    public CartInfo remove(String key) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return carts.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    private ReentrantLock lockFor(String key) {
+        int h = key.hashCode();
+        // Spread the high bits, as HashMap does, before picking a stripe
+        return locks[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CartInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for the persistent carts. Cart changes only record the latest snapshot
+ * per user; a background worker drains the queue every {@code cart.write-behind.flush-interval-ms}
+ * and writes it {@link CartSnapshotCodec}-encoded with JDBC batches, so repeated changes within
+ * one window cost a single write and the request thread never waits on the database.
+ *
+ * An empty snapshot deletes the stored cart. Pending snapshots are flushed on graceful
+ * shutdown; a crash loses at most one window of changes.
+ */
+@Component
+public class CartWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteBehind.class);
+
+    private static final String UPDATE_SQL =
+            "update persistent_carts set cart_snapshot = ?, cart_data = null, last_updated = ? where user_id = ?";
+    private static final String INSERT_SQL =
+            "insert into persistent_carts (user_id, cart_snapshot, last_updated) values (?, ?, ?)";
+    private static final String DELETE_SQL = "delete from persistent_carts where user_id = ?";
+
+    private final ConcurrentHashMap<String, CartInfo> pending = new ConcurrentHashMap<>();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${cart.write-behind.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${cart.write-behind.batch-size:100}")
+    private int batchSize;
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void start() {
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        worker.shutdown();
+        if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Cart write-behind worker did not stop in time");
+        }
+        flush();
+    }
+
+    /**
+     * Queue the latest state of a user's cart, replacing any snapshot not yet written.
+     * Must be called in cart order (under the cart lock) and with a copy that is no longer changed.
+     */
+    public void enqueue(String userId, CartInfo snapshot) {
+        pending.put(userId, snapshot);
+    }
+
+    /**
+     * Queue the deletion of a user's stored cart.
+     */
+    public void enqueueDelete(String userId) {
+        pending.put(userId, new CartInfo());
+    }
+
+    /**
+     * The snapshot of a user's cart still waiting to be written, or {@code null}. Readers of the
+     * persistent storage must prefer it over the stored row.
+     */
+    public CartInfo pendingSnapshot(String userId) {
+        return pending.get(userId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("written", written.get());
+        stats.put("deleted", deleted.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        return stats;
+    }
+
+    /**
+     * Write everything queued so far. Only called from the worker thread, or after it stopped.
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Snapshots stay pending until written, so a cart reloaded meanwhile reads them
+        // rather than the row they are about to replace
+        Map<String, CartInfo> drained = new LinkedHashMap<>(pending);
+        try {
+            write(drained);
+        } catch (RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            throw e;
+        }
+        // Unless a newer snapshot arrived meanwhile
+        drained.forEach(pending::remove);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Error flushing {} pending carts, retrying in {} ms", pending.size(), flushIntervalMs, e);
+        }
+    }
+
+    private void write(Map<String, CartInfo> carts) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Map.Entry<String, CartInfo> entry : carts.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                deletes.add(new Object[]{entry.getKey()});
+                continue;
+            }
+            updates.add(new Object[]{CartSnapshotCodec.encode(entry.getValue()), now, entry.getKey()});
+        }
+
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes, batchSize, (ps, row) -> ps.setString(1, (String) row[0]));
+            deleted.addAndGet(deletes.size());
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        // Update existing rows first, then insert the carts that had none
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates, batchSize, (ps, row) -> {
+            ps.setBytes(1, (byte[]) row[0]);
+            ps.setTimestamp(2, (Timestamp) row[1]);
+            ps.setString(3, (String) row[2]);
+        });
+        List<Object[]> inserts = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    inserts.add(updates.get(index));
+                }
+                index++;
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, batchSize, (ps, row) -> {
+                ps.setString(1, (String) row[2]);
+                ps.setBytes(2, (byte[]) row[0]);
+                ps.setTimestamp(3, (Timestamp) row[1]);
+            });
+        }
+        written.addAndGet(updates.size());
+    }
+}
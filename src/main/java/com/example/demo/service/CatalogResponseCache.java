@@ -0,0 +1,159 @@
+package com.example.demo.service;
+
+import com.example.demo.dao.ProductChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conditional GET and a cache of serialized responses for the public catalog API.
+ *
+ * A catalog version moves on after every committed product change (all writes end up as a
+ * {@link ProductChangedEvent}, bulk updates included). It is the weak ETag of every catalog
+ * response, so a browser revalidating an unchanged catalog gets a 304 without anything being
+ * read, and it keys the JSON bytes kept per query: a repeated query is answered without
+ * rendering it again. A change drops all cached responses.
+ */
+@Service
+public class CatalogResponseCache {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.response-cache.max-entries:500}")
+    private int maxEntries;
+
+    // Starts from the clock so that ETags handed out before a restart do not match
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    /**
+     * Answer a catalog GET: 304 if the client's ETag is still current, else the cached bytes
+     * for this query, else whatever the renderer returns, serialized and cached. A renderer
+     * returning a {@link ResponseEntity} (an error or not found) bypasses the cache.
+     *
+     * @param key the query, see {@link #key(String, WebRequest)}
+     */
+    public ResponseEntity<?> respond(WebRequest request, String key, Callable<Object> renderer) throws Exception {
+        // Read before rendering: a change committed meanwhile leaves the result under the old version
+        long current = version.get();
+        String etag = "W/\"" + current + "\"";
+        if (request.checkNotModified(etag)) {
+            notModified.incrementAndGet();
+            // Repeat the caching headers, or the 304 would carry the no-store default
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).eTag(etag).build();
+        }
+
+        CachedResponse cached = enabled ? responses.get(key) : null;
+        byte[] body;
+        if (cached != null && cached.version() == current) {
+            hits.incrementAndGet();
+            body = cached.body();
+        } else {
+            misses.incrementAndGet();
+            Object rendered = renderer.call();
+            if (rendered instanceof ResponseEntity<?> response) {
+                return response;
+            }
+            body = serialize(rendered);
+            if (enabled) {
+                if (responses.size() >= maxEntries) {
+                    responses.clear();
+                }
+                responses.put(key, new CachedResponse(current, body));
+            }
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(body);
+    }
+
+    /**
+     * Cache key of a request: the path plus the given parameters in a fixed order, URL-encoded
+     * so that a value cannot pose as further parameters. Only the parameters the handler binds
+     * are part of the key; others would not change the response but could fill the cache.
+     */
+    public static String key(String path, WebRequest request, String... parameters) {
+        StringBuilder key = new StringBuilder(path);
+        for (String name : new TreeSet<>(Arrays.asList(parameters))) {
+            String[] values = request.getParameterValues(name);
+            if (values == null) {
+                continue;
+            }
+            for (String value : values) {
+                key.append('&').append(encode(name)).append('=').append(encode(value));
+            }
+        }
+        return key.toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Runs after the other product listeners, so the catalog index already shows the change
+     * when a new version can be observed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        responses.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("version", version.get());
+        stats.put("entries", responses.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("notModified", notModified.get());
+        return stats;
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize catalog response", e);
+        }
+    }
+
+    private record CachedResponse(long version, byte[] body) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ProductInfo;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage for product images. Uploads are staged first, outside any transaction, and only
+ * become visible once published; publishing inside a transaction waits for its commit.
+ * Images are addressed by content, so identical uploads share one stored file and callers
+ * must only {@link #delete(String) delete} an image no product refers to anymore.
+ *
+ * Typical use:
+ * <pre>
+ * try (ImageStore.StagedImage image = imageStore.stage(upload)) {
+ *     product.setImagePath(image.getPath());
+ *     productRepository.save(product);
+ *     imageStore.publish(image);
+ * }
+ * </pre>
+ */
+public interface ImageStore {
+
+    /**
+     * Stream an upload into temporary storage and hash it.
+     */
+    StagedImage stage(MultipartFile upload) throws IOException;
+
+    /**
+     * Make a staged image available under its path, after the current transaction commits
+     * (and never if it rolls back), or right away without one.
+     */
+    void publish(StagedImage image);
+
+    /**
+     * Remove a stored image by its public path, together with the images derived from it,
+     * after the current transaction commits. Paths outside the store are ignored.
+     */
+    void delete(String imagePath);
+
+    boolean exists(String imagePath);
+
+    InputStream open(String imagePath) throws IOException;
+
+    /**
+     * Store an image derived from a stored one (a thumbnail, say) under
+     * {@link ProductInfo#derivedImagePath(String, String)}, replacing any previous version.
+     * The image is written right away, not at commit.
+     */
+    void storeDerived(String derivedPath, byte[] data) throws IOException;
+
+    /**
+     * An upload that is not visible yet. Closing it discards the data unless it was published.
+     */
+    interface StagedImage extends AutoCloseable {
+
+        /**
+         * Public path the image will be served from, e.g. {@code /product-images/<sha256>.jpg}.
+         */
+        String getPath();
+
+        long getSize();
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.demo.service;
+
+import com.example.demo.dao.ProductBulkUpdate;
+import com.example.demo.model.ProductInfo;
+import com.example.demo.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a thumbnail and a few smaller widths of every uploaded product image, on a small
+ * bounded worker pool so uploads never wait for it. Variants are stored next to the original
+ * (see {@link ProductInfo#derivedImagePath(String, String)}) and, once all are written, listed
+ * on every product showing that image, which makes them appear in {@link ProductInfo}.
+ *
+ * When the queue is full the request is dropped and the products keep only the original image.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkUpdate productBulkUpdate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${image.variants.thumbnail-size:200}")
+    private int thumbnailSize;
+
+    @Value("${image.variants.widths:320,640,1024}")
+    private int[] widths;
+
+    @Value("${image.variants.threads:2}")
+    private int threads;
+
+    @Value("${image.variants.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${image.variants.max-pixels:40000000}")
+    private long maxPixels;
+
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queue variant generation for a stored image, once the current transaction (if any) has
+     * committed. Returns immediately.
+     */
+    public void requestVariants(String imagePath) {
+        if (imagePath == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(imagePath);
+                }
+            });
+        } else {
+            submit(imagePath);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", workers.getQueue().size());
+        stats.put("active", workers.getActiveCount());
+        stats.put("generated", generated.get());
+        stats.put("dropped", dropped.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private void submit(String imagePath) {
+        if (!queued.add(imagePath)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(imagePath);
+                } finally {
+                    queued.remove(imagePath);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(imagePath);
+            dropped.incrementAndGet();
+            logger.warn("Image variant queue full, skipping {}", imagePath);
+        }
+    }
+
+    private void generate(String imagePath) {
+        try {
+            List<String> names = writeVariants(imagePath);
+            if (names.isEmpty()) {
+                return;
+            }
+            String variants = String.join(",", names);
+            transactionTemplate.executeWithoutResult(status -> productBulkUpdate.run(
+                    () -> productRepository.updateImageVariants(imagePath, variants),
+                    () -> productRepository.findByImagePath(imagePath)));
+            generated.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.warn("Failed to generate variants of {}: {}", imagePath, e.getMessage());
+        }
+    }
+
+    /**
+     * Write the missing variants of an image and return the names of all of them. Identical
+     * uploads share their file, so the variants often exist already and nothing is decoded.
+     */
+    private List<String> writeVariants(String imagePath) throws IOException {
+        if (!imageStore.exists(imagePath)) {
+            return List.of();
+        }
+        int[] size = readSize(imagePath);
+        if (size == null || (long) size[0] * size[1] > maxPixels) {
+            logger.warn("Not generating variants of {}: unreadable or too large", imagePath);
+            return List.of();
+        }
+        boolean keepAlpha = imagePath.toLowerCase(Locale.ROOT).matches(".*\\.(png|gif)$");
+        String extension = keepAlpha ? ".png" : ".jpg";
+
+        Map<String, int[]> planned = new LinkedHashMap<>();
+        planned.put("thumb" + extension, fit(size, thumbnailSize, thumbnailSize));
+        for (int width : widths) {
+            if (width < size[0]) {
+                planned.put("w" + width + extension, fit(size, width, Integer.MAX_VALUE));
+            }
+        }
+
+        BufferedImage source = null;
+        List<String> names = new ArrayList<>(planned.size());
+        for (Map.Entry<String, int[]> variant : planned.entrySet()) {
+            String path = ProductInfo.derivedImagePath(imagePath, variant.getKey());
+            if (!imageStore.exists(path)) {
+                if (source == null) {
+                    try (InputStream in = imageStore.open(imagePath)) {
+                        source = ImageIO.read(in);
+                    }
+                    if (source == null) {
+                        return List.of();
+                    }
+                }
+                int[] target = variant.getValue();
+                imageStore.storeDerived(path, encode(scale(source, target[0], target[1], keepAlpha), keepAlpha));
+            }
+            names.add(variant.getKey());
+        }
+        return names;
+    }
+
+    private int[] readSize(String imagePath) throws IOException {
+        try (InputStream in = imageStore.open(imagePath);
+             ImageInputStream image = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = image == null ? null : ImageIO.getImageReaders(image);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(image, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static int[] fit(int[] size, int maxWidth, int maxHeight) {
+        double scale = Math.min(1.0, Math.min((double) maxWidth / size[0], (double) maxHeight / size[1]));
+        return new int[]{Math.max(1, (int) Math.round(size[0] * scale)), Math.max(1, (int) Math.round(size[1] * scale))};
+    }
+
+    /**
+     * Downscale in halving steps with bilinear filtering, which keeps small variants sharp
+     * without the cost of bicubic filtering on the full-size image.
+     */
+    private static BufferedImage scale(BufferedImage source, int width, int height, boolean keepAlpha) {
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                if (!keepAlpha) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth > width || currentHeight > height);
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image, boolean keepAlpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, keepAlpha ? "png" : "jpg", out)) {
+            throw new IOException("No image writer available");
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * {@link ImageStore} on the local file system. Uploads are streamed through a SHA-256 digest
+ * into a staging directory next to the image directory, in small chunks, and published by an atomic
+ * rename to {@code <sha256>.<ext>}. An image that is already stored is not written again.
+ */
+@Service
+public class LocalImageStore implements ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalImageStore.class);
+
+    public static final String URL_PREFIX = "/product-images/";
+
+    private static final long CHUNK_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path staging;
+
+    public LocalImageStore(@Value("${upload.dir:src/main/resources/static/product-images/}") String uploadDir)
+            throws IOException {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        // A sibling of the image directory: never served, but on the same file system for the rename
+        this.staging = root.resolveSibling("." + root.getFileName() + "-staging");
+        Files.createDirectories(root);
+        Files.createDirectories(staging);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public StagedImage stage(MultipartFile upload) throws IOException {
+        Path temp = Files.createTempFile(staging, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (InputStream in = new DigestInputStream(upload.getInputStream(), digest);
+                 ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long written;
+                while ((written = target.transferFrom(source, size, CHUNK_SIZE)) > 0) {
+                    size += written;
+                }
+            }
+            String name = HexFormat.of().formatHex(digest.digest()) + extension(upload.getOriginalFilename());
+            return new LocalStagedImage(temp, name, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    public void publish(StagedImage image) {
+        LocalStagedImage staged = (LocalStagedImage) image;
+        staged.handedOver = true;
+        afterCommit(() -> moveIntoPlace(staged), () -> deleteQuietly(staged.temp));
+    }
+
+    @Override
+    public void delete(String imagePath) {
+        Path file = resolve(imagePath);
+        if (file != null) {
+            afterCommit(() -> {
+                deleteQuietly(file);
+                deleteDerived(file);
+            }, () -> { });
+        }
+    }
+
+    @Override
+    public boolean exists(String imagePath) {
+        Path file = resolve(imagePath);
+        return file != null && Files.isRegularFile(file);
+    }
+
+    @Override
+    public InputStream open(String imagePath) throws IOException {
+        Path file = resolve(imagePath);
+        if (file == null) {
+            throw new NoSuchFileException(imagePath);
+        }
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void storeDerived(String derivedPath, byte[] data) throws IOException {
+        Path target = resolve(derivedPath);
+        if (target == null) {
+            throw new IllegalArgumentException("Not an image store path: " + derivedPath);
+        }
+        Path temp = Files.createTempFile(staging, "derived-", ".tmp");
+        try {
+            Files.write(temp, data);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The stored file behind a public path, or {@code null} if the path is not one of ours.
+     */
+    public Path resolve(String imagePath) {
+        if (imagePath == null || !imagePath.startsWith(URL_PREFIX)) {
+            return null;
+        }
+        String name = imagePath.substring(URL_PREFIX.length());
+        if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.startsWith(".")) {
+            return null;
+        }
+        return root.resolve(name);
+    }
+
+    private void moveIntoPlace(LocalStagedImage image) {
+        Path target = root.resolve(image.name);
+        try {
+            if (Files.exists(target)) {
+                // Same content already stored
+                Files.delete(image.temp);
+                return;
+            }
+            try {
+                Files.move(image.temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(image.temp, target);
+            }
+        } catch (FileAlreadyExistsException e) {
+            deleteQuietly(image.temp);
+        } catch (IOException e) {
+            deleteQuietly(image.temp);
+            throw new UncheckedIOException("Failed to store image " + image.name, e);
+        }
+    }
+
+    private void deleteDerived(Path file) {
+        String name = file.getFileName().toString();
+        int lastDotIndex = name.lastIndexOf('.');
+        String base = lastDotIndex == -1 ? name : name.substring(0, lastDotIndex);
+        String prefix = base + "-";
+        try (DirectoryStream<Path> derived = Files.newDirectoryStream(root,
+                path -> path.getFileName().toString().startsWith(prefix))) {
+            for (Path path : derived) {
+                deleteQuietly(path);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete images derived from {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete image file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int lastDotIndex = fileName.lastIndexOf('.');
+        if (lastDotIndex == -1) {
+            return "";
+        }
+        String extension = fileName.substring(lastDotIndex + 1).toLowerCase(Locale.ROOT);
+        return extension.matches("[a-z0-9]{1,5}") ? "." + extension : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class LocalStagedImage implements StagedImage {
+        private final Path temp;
+        private final String name;
+        private final long size;
+        private volatile boolean handedOver;
+
+        LocalStagedImage(Path temp, String name, long size) {
+            this.temp = temp;
+            this.name = name;
+            this.size = size;
+        }
+
+        @Override
+        public String getPath() {
+            return URL_PREFIX + name;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public void close() {
+            if (!handedOver) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases expired checkout holds every {@code reservation.hold.sweep-interval-ms}. Expired
+ * holds already stop blocking new checkouts; the sweep only clears them from the pets.
+ */
+@Component
+public class ReservationHoldSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationHoldSweeper.class);
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Value("${reservation.hold.sweep-interval-ms:60000}")
+    private long sweepIntervalMs;
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void start() {
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-hold-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::sweepQuietly, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+    }
+
+    private void sweepQuietly() {
+        try {
+            int released = reservationService.releaseExpiredHolds();
+            if (released > 0) {
+                logger.info("Released {} expired reservation holds", released);
+            }
+        } catch (Exception e) {
+            logger.warn("Releasing expired reservation holds failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates the reservation items of reservations made before items existed, from their
+ * reservedItemsDetails JSON, in pages, once the application is up. Items of pets that no
+ * longer exist keep their name and price but no product. Rows that cannot be parsed are
+ * logged and skipped. Reservations without lines ({@code []}, as the cart serializes an empty
+ * list) are not selected: they get no items, so they would be selected again on every start.
+ */
+@Component
+public class ReservationItemMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationItemMigration.class);
+
+    private static final String SELECT_SQL = "select r.id, r.reserved_items_details from reservations r "
+            + "where r.reserved_items_details is not null and r.reserved_items_details <> '[]' and r.id > ? "
+            + "and not exists (select 1 from reservation_items i where i.reservation_id = r.id) "
+            + "order by r.id limit ?";
+    private static final String INSERT_SQL = "insert into reservation_items "
+            + "(reservation_id, product_code, product_name, unit_price, quantity) values (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${reservation.items.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Value("${reservation.items.migration-page-size:500}")
+    private int pageSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    /**
+     * @return the number of reservations that got items
+     */
+    public int migrate() {
+        long lastId = 0;
+        int migrated = 0;
+        int failed = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_SQL, lastId, pageSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> inserts = new ArrayList<>();
+            Set<String> codes = new HashSet<>();
+            for (Map<String, Object> row : rows) {
+                long id = ((Number) row.get("id")).longValue();
+                lastId = id;
+                try {
+                    List<Object[]> items = parseItems(id, (String) row.get("reserved_items_details"));
+                    items.forEach(item -> codes.add((String) item[1]));
+                    inserts.addAll(items);
+                    migrated++;
+                } catch (Exception e) {
+                    failed++;
+                    logger.warn("Cannot read items of reservation {}: {}", id, e.getMessage());
+                }
+            }
+            if (!inserts.isEmpty()) {
+                Set<String> existing = existingProductCodes(codes);
+                for (Object[] insert : inserts) {
+                    if (!existing.contains(insert[1])) {
+                        insert[1] = null;
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+        }
+        if (migrated > 0 || failed > 0) {
+            logger.info("Created items for {} reservations, {} could not be read", migrated, failed);
+        }
+        return migrated;
+    }
+
+    private List<Object[]> parseItems(long reservationId, String json) throws Exception {
+        List<Object[]> items = new ArrayList<>();
+        for (JsonNode line : objectMapper.readTree(json)) {
+            JsonNode productInfo = line.path("productInfo");
+            String code = productInfo.path("code").asText(null);
+            if (code == null) {
+                throw new IllegalArgumentException("Line without product code");
+            }
+            items.add(new Object[]{reservationId, code, productInfo.path("name").asText(null),
+                    productInfo.path("price").asDouble(), line.path("quantity").asInt(1)});
+        }
+        return items;
+    }
+
+    private Set<String> existingProductCodes(Set<String> codes) {
+        if (codes.isEmpty()) {
+            return codes;
+        }
+        String placeholders = String.join(",", Collections.nCopies(codes.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "select code from products where code in (" + placeholders + ")", String.class, codes.toArray()));
+    }
+}
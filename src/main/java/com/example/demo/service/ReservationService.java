@@ -1,25 +1,42 @@
 package com.example.demo.service;
 
+import com.example.demo.dao.ProductBulkUpdate;
 import com.example.demo.entity.Reservation;
 import com.example.demo.entity.Reservation.ReservationStatus;
 import com.example.demo.entity.Product;
+import com.example.demo.entity.ReservationItem;
 import com.example.demo.model.CartInfo;
+import com.example.demo.model.CartLineInfo;
 import com.example.demo.model.CustomerInfo;
+import com.example.demo.model.ProductInfo;
 import com.example.demo.repository.ReservationRepository;
 import com.example.demo.repository.ProductRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 @Transactional
 public class ReservationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
     @Autowired
     private ReservationRepository reservationRepository;
 
@@ -29,6 +46,12 @@ public class ReservationService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductBulkUpdate productBulkUpdate;
+
+    @Value("${reservation.hold.ttl-minutes:2880}")
+    private long holdTtlMinutes;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public Reservation createReservationFromCart(
@@ -57,18 +80,58 @@ public class ReservationService {
         String reservedItemsDetails = objectMapper.writeValueAsString(cartInfo.getCartLines());
         reservation.setReservedItemsDetails(reservedItemsDetails);
 
-        // Set the product on the reservation (assume one pet per reservation)
-        if (!cartInfo.getCartLines().isEmpty()) {
-            String productCode = cartInfo.getCartLines().get(0).getProductInfo().getCode();
-            Product product = productRepository.findById(productCode).orElse(null);
-            reservation.setProduct(product);
+        // Load every pet of the cart with one query
+        Set<String> codes = new HashSet<>();
+        for (CartLineInfo line : cartInfo.getCartLines()) {
+            codes.add(line.getProductInfo().getCode());
+        }
+        Map<String, Product> productsByCode = new HashMap<>();
+        for (Product product : productRepository.findAllById(codes)) {
+            productsByCode.put(product.getCode(), product);
         }
 
-        return reservationRepository.save(reservation);
+        // One item per reserved pet; the first one is also the reservation's product
+        List<Product> products = new ArrayList<>();
+        for (CartLineInfo line : cartInfo.getCartLines()) {
+            ProductInfo productInfo = line.getProductInfo();
+            Product product = productsByCode.get(productInfo.getCode());
+            if (reservation.getProduct() == null) {
+                reservation.setProduct(product);
+            }
+            ReservationItem item = new ReservationItem();
+            item.setProduct(product);
+            item.setProductName(productInfo.getName());
+            item.setUnitPrice(productInfo.getPrice());
+            item.setQuantity(line.getQuantity());
+            reservation.addItem(item);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        reservation = reservationRepository.save(reservation);
+        holdProducts(reservation.getId(), products);
+        return reservation;
     }
 
-    public List<Reservation> getAllReservations() {
-        return reservationRepository.findAll();
+    /**
+     * Hold every pet for the new reservation until the hold TTL passes, provided it is still at
+     * the version read for the reservation. Fails on the first pet that is adopted, held by
+     * someone else or changed meanwhile; the caller's transaction then rolls back the
+     * reservation and the holds taken so far. Pets are held in code order so that two
+     * checkouts sharing pets cannot deadlock on the row locks.
+     */
+    private void holdProducts(Long reservationId, List<Product> products) {
+        Date now = new Date();
+        Date until = new Date(now.getTime() + holdTtlMinutes * 60_000L);
+        Map<String, Long> versions = new TreeMap<>();
+        for (Product product : products) {
+            versions.put(product.getCode(), product.getVersion());
+        }
+        for (Map.Entry<String, Long> pet : versions.entrySet()) {
+            if (productRepository.hold(pet.getKey(), pet.getValue(), reservationId, until, now) == 0) {
+                throw new OptimisticLockingFailureException("Pet " + pet.getKey() + " has already been reserved.");
+            }
+        }
     }
 
     public Reservation getReservationById(Long id) {
@@ -80,10 +143,44 @@ public class ReservationService {
         return reservationRepository.save(reservation);
     }
 
-    public Reservation updateReservationStatus(Long id, ReservationStatus status) {
+    /**
+     * Change the status of a reservation and of the pets it reserves: accepted pets become
+     * ADOPTED, rejected ones AVAILABLE again. The pets are updated with one statement.
+     * Accepting fails, and changes nothing, if the reservation no longer holds all of its
+     * pets, e.g. because its hold expired and another reservation took one.
+     *
+     * @param status a {@link ReservationStatus} or its name
+     * @throws OptimisticLockingFailureException if an accepted reservation lost a pet
+     */
+    public Reservation updateReservationStatus(Long id, Object status) {
         Reservation reservation = getReservationById(id);
         reservation.setStatus(status);
-        return reservationRepository.save(reservation);
+        reservationRepository.save(reservation);
+
+        String productStatus = switch (reservation.getStatus()) {
+            case ACCEPTED -> "ADOPTED";
+            case REJECTED -> "AVAILABLE";
+            default -> null;
+        };
+        if (productStatus != null) {
+            boolean accepted = reservation.getStatus() == ReservationStatus.ACCEPTED;
+            long pets = reservation.getItems().stream()
+                    .filter(item -> item.getProduct() != null)
+                    .map(item -> item.getProduct().getCode())
+                    .distinct()
+                    .count();
+            int updated = productBulkUpdate.run(
+                    () -> productRepository.updateStatusByReservation(id, productStatus, accepted ? id : null),
+                    () -> productRepository.findByReservation(id));
+            if (accepted && updated != pets) {
+                // Rolls back the status change and the pets updated so far
+                throw new OptimisticLockingFailureException("Reservation " + id + " holds only " + updated
+                        + " of its " + pets + " pets; they were reserved by someone else.");
+            }
+            logger.info("Set {} pets of reservation {} to {}", updated, id, productStatus);
+        }
+        // The bulk update cleared the persistence context
+        return getReservationById(id);
     }
 
     // New method to get reservations by customer email
@@ -91,9 +188,34 @@ public class ReservationService {
         return reservationRepository.findByCustomerEmail(customerEmail);
     }
 
+    public List<Reservation> getActiveReservationsByCustomerEmail(String customerEmail) {
+        return reservationRepository.findByCustomerEmailAndStatus(customerEmail, ReservationStatus.PENDING);
+    }
+
+    /**
+     * Delete all accepted and rejected reservations of a customer with one statement.
+     *
+     * @return the number of deleted reservations
+     */
+    public int clearCompletedReservations(String customerEmail) {
+        return reservationRepository.deleteByCustomerEmailAndStatusIn(customerEmail,
+                EnumSet.of(ReservationStatus.ACCEPTED, ReservationStatus.REJECTED));
+    }
+
     public void deleteReservation(Long id) {
         Reservation reservation = getReservationById(id);
         reservationRepository.delete(reservation);
+        productRepository.releaseHolds(id);
+    }
+
+    /**
+     * Release the holds of reservations that were not decided within the hold TTL, so their
+     * pets can be reserved again. The reservations themselves stay pending.
+     *
+     * @return the number of released pets
+     */
+    public int releaseExpiredHolds() {
+        return productRepository.releaseExpiredHolds(new Date());
     }
 
     // You might want methods to get reservations by status, customer, etc.
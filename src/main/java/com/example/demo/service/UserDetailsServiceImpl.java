@@ -3,10 +3,13 @@ package com.example.demo.service;
 import java.util.Collections;
 
 import com.example.demo.entity.Account;
+import com.example.demo.model.AccountInfo;
 import com.example.demo.repository.AccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -15,37 +18,55 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private AccountCache accountCache;
+
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         logger.debug("Loading user by email: {}", email);
-        Account account = accountRepository.findById(email)
-                .orElseThrow(() -> {
-                    logger.warn("User not found with email: {}", email);
-                    return new UsernameNotFoundException("User not found with email: " + email);
-                });
-
-        logger.debug("User found: {} with role: {}", account.getEmail(), account.getRole());
+        AccountCache.CachedAccount account = findCachedAccount(email);
 
         // Use the role directly from the account
-        String role = account.getRole();
-        logger.debug("Setting role: {}", role);
+        String role = account.info().getRole();
+        logger.debug("User found: {} with role: {}", email, role);
 
-        return new org.springframework.security.core.userdetails.User(
-                account.getEmail(),
-                account.getPassword(),
-                account.isActive(),
+        // A new User every time: the authentication erases the password of the one it gets
+        return new User(
+                account.info().getEmail(),
+                account.password(),
+                account.active(),
                 true, true, true,
                 Collections.singletonList(new SimpleGrantedAuthority(role))
         );
     }
 
+    /**
+     * Stores a password rehashed at login because its BCrypt cost differs from the configured
+     * one. The account cache drops the old hash once this commits.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Account account = findByEmail(user.getUsername());
+        account.setPassword(newPassword);
+        accountRepository.save(account);
+        logger.info("Rehashed the password of {} with the configured BCrypt cost", user.getUsername());
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+
+    /**
+     * The public part of an account, from the account cache.
+     */
+    public AccountInfo findAccountInfo(String email) {
+        return findCachedAccount(email).info();
+    }
+
     public boolean existsByEmail(String email) {
         logger.debug("Checking if user exists with email: {}", email);
         return accountRepository.existsById(email);
@@ -56,6 +77,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return accountRepository.save(account);
     }
 
+    private AccountCache.CachedAccount findCachedAccount(String email) {
+        AccountCache.CachedAccount account = accountCache.find(email);
+        if (account == null) {
+            logger.warn("User not found with email: {}", email);
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
+        return account;
+    }
+
     public Account findByEmail(String email) {
         logger.debug("Finding account by email: {}", email);
         return accountRepository.findById(email)
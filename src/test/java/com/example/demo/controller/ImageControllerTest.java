@@ -0,0 +1,141 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.LocalImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageControllerTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final String PATH = "/product-images/" + HASH + ".jpg";
+    private static final String ETAG = "\"" + HASH + "\"";
+
+    @TempDir
+    Path directory;
+
+    private ImageController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalImageStore imageStore = new LocalImageStore(directory.resolve("images").toString());
+        Files.write(imageStore.getRoot().resolve(HASH + ".jpg"), new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+        controller = new ImageController();
+        ReflectionTestUtils.setField(controller, "imageStore", imageStore);
+    }
+
+    @Test
+    void parsesOneRange() {
+        assertArrayEquals(new long[]{0, 4}, ImageController.parseRange("bytes=0-4", 10));
+        // Open ended
+        assertArrayEquals(new long[]{6, 9}, ImageController.parseRange("bytes=6-", 10));
+        // The last bytes
+        assertArrayEquals(new long[]{7, 9}, ImageController.parseRange("bytes=-3", 10));
+        assertArrayEquals(new long[]{0, 9}, ImageController.parseRange("bytes=-30", 10));
+        // End past the file clamped to its size
+        assertArrayEquals(new long[]{5, 9}, ImageController.parseRange("bytes=5-100", 10));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() {
+        assertNull(ImageController.parseRange("bytes=-0", 10));
+        assertNull(ImageController.parseRange("bytes=10-", 10));
+        assertNull(ImageController.parseRange("bytes=12-20", 10));
+    }
+
+    @Test
+    void ignoresMultipleAndMalformedRanges() {
+        assertArrayEquals(new long[0], ImageController.parseRange("bytes=0-1,4-5", 10));
+        assertArrayEquals(new long[0], ImageController.parseRange("items=0-4", 10));
+        assertArrayEquals(new long[0], ImageController.parseRange("bytes=4", 10));
+        assertArrayEquals(new long[0], ImageController.parseRange("bytes=a-b", 10));
+        assertArrayEquals(new long[0], ImageController.parseRange("bytes=5-2", 10));
+    }
+
+    @Test
+    void matchesWeakEtagsOnlyWhenAllowed() {
+        assertTrue(ImageController.etagMatches(ETAG, ETAG, true));
+        assertTrue(ImageController.etagMatches("\"other\", " + ETAG, ETAG, false));
+        assertTrue(ImageController.etagMatches("*", ETAG, false));
+        // If-None-Match compares weakly, If-Range strongly
+        assertTrue(ImageController.etagMatches("W/" + ETAG, ETAG, true));
+        assertFalse(ImageController.etagMatches("W/" + ETAG, ETAG, false));
+        assertFalse(ImageController.etagMatches("\"other\"", ETAG, true));
+    }
+
+    @Test
+    void servesTheWholeImage() throws Exception {
+        MockHttpServletResponse response = serve(request());
+        assertEquals(200, response.getStatus());
+        assertEquals(ETAG, response.getHeader("ETag"));
+        assertEquals(ImageController.IMMUTABLE, response.getHeader("Cache-Control"));
+        assertEquals(10, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void answersNotModifiedForAKnownEtag() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader("If-None-Match", "W/" + ETAG);
+        MockHttpServletResponse response = serve(request);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        request = request();
+        request.addHeader("If-None-Match", "\"other\"");
+        assertEquals(200, serve(request).getStatus());
+    }
+
+    @Test
+    void servesRanges() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=8-");
+        MockHttpServletResponse response = serve(request);
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 8-9/10", response.getHeader("Content-Range"));
+        assertArrayEquals(new byte[]{8, 9}, response.getContentAsByteArray());
+
+        request = request();
+        request.addHeader("Range", "bytes=-0");
+        response = serve(request);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    void servesTheRangeOnlyIfTheRepresentationIsUnchanged() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=0-1");
+        request.addHeader("If-Range", ETAG);
+        assertEquals(206, serve(request).getStatus());
+
+        // A weak validator never satisfies If-Range: the whole image is sent
+        request = request();
+        request.addHeader("Range", "bytes=0-1");
+        request.addHeader("If-Range", "W/" + ETAG);
+        MockHttpServletResponse response = serve(request);
+        assertEquals(200, response.getStatus());
+        assertEquals(10, response.getContentAsByteArray().length);
+    }
+
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", PATH);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.serveImage(request, response);
+        return response;
+    }
+}
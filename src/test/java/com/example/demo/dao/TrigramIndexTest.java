@@ -0,0 +1,112 @@
+package com.example.demo.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Search behaviour of the trigram index over name, breed and description, weighted like
+ * the catalog: the substring matches the former {@code LIKE '%term%'} found, word prefixes
+ * while typing, typo tolerance and the ranking of the hits.
+ */
+class TrigramIndexTest {
+
+    private static final int DOG = 0;
+    private static final int CAT = 1;
+    private static final int POODLE = 2;
+    private static final int DOGE = 3;
+    private static final int PARROT = 4;
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex(3f, 2f, 1f);
+        index.add(DOG, "Rex the dog", "Beagle", "A friendly hound");
+        index.add(CAT, "Tom the cat", "Siamese", "Sleeps all day");
+        index.add(POODLE, "Fifi", "Poodle", "Curly and clever");
+        index.add(DOGE, "Doge", "Shiba Inu", "Much wow");
+        index.add(PARROT, "Polly", "Parrot", "Talks about dogs");
+    }
+
+    @Test
+    void matchesWordPrefixWhileTyping() {
+        assertEquals(List.of(DOG, DOGE, PARROT), docs(index.search("do")));
+        // Four trigrams only need half of them: "Polly" shares "  p" and " po", but ranks below
+        TrigramIndex.Hits hits = index.search("pood");
+        assertEquals(List.of(POODLE, PARROT), docs(hits));
+        assertTrue(score(hits, POODLE) > score(hits, PARROT));
+    }
+
+    @Test
+    void matchesShortFragmentsInsideWords() {
+        assertEquals(List.of(DOG, DOGE, PARROT), docs(index.search("og")));
+        assertEquals(List.of(CAT), docs(index.search("at")));
+        assertEquals(List.of(CAT), docs(index.search("ame")));
+    }
+
+    @Test
+    void matchesLongerFragmentsInsideWords() {
+        assertEquals(List.of(POODLE), docs(index.search("oodle")));
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertEquals(List.of(POODLE), docs(index.search("poodel")));
+        assertEquals(List.of(DOG), docs(index.search("beagel")));
+    }
+
+    @Test
+    void findsNothingForUnrelatedText() {
+        assertEquals(List.of(), docs(index.search("zebra")));
+        assertEquals(List.of(), docs(index.search("qx")));
+        assertEquals(List.of(), docs(index.search("")));
+    }
+
+    @Test
+    void ranksWordStartsAndHeavierFieldsFirst() {
+        TrigramIndex.Hits hits = index.search("dog");
+        // The name "Rex the dog" and "Doge" start a word with it, "dogs" only in the description
+        assertTrue(score(hits, DOG) > score(hits, PARROT));
+        assertTrue(score(hits, DOGE) > score(hits, PARROT));
+
+        hits = index.search("og");
+        // Mid-word in the name outweighs mid-word in the description
+        assertTrue(score(hits, DOG) > score(hits, PARROT));
+
+        hits = index.search("do");
+        // A word prefix outweighs a typo-free mid-word hit
+        assertTrue(score(hits, DOGE) > 0);
+        assertTrue(score(hits, DOG) > score(hits, PARROT));
+    }
+
+    @Test
+    void skipsRemovedDocuments() {
+        index.remove(DOG);
+        assertEquals(List.of(DOGE, PARROT), docs(index.search("do")));
+        assertEquals(List.of(DOGE, PARROT), docs(index.search("og")));
+        assertEquals(1, index.deletedCount());
+    }
+
+    private static List<Integer> docs(TrigramIndex.Hits hits) {
+        List<Integer> docs = new ArrayList<>();
+        for (int i = 0; i < hits.size(); i++) {
+            docs.add(hits.doc(i));
+        }
+        return docs;
+    }
+
+    private static float score(TrigramIndex.Hits hits, int doc) {
+        for (int i = 0; i < hits.size(); i++) {
+            if (hits.doc(i) == doc) {
+                return hits.score(i);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.fixtures;
+
+import com.example.demo.entity.Product;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic catalog shared by the benchmarks and the load test.
+ */
+public final class CatalogFixtures {
+
+    private static final String[][] BREEDS = {
+            {"Golden Retriever", "Labrador", "German Shepherd", "Beagle", "Bulldog", "Poodle", "Husky", "Dachshund"},
+            {"Persian", "Siamese", "Maine Coon", "Bengal", "Ragdoll", "Sphynx"},
+            {"Parrot", "Cockatiel", "Budgie", "Canary", "Lovebird"},
+            {"Goldfish", "Betta", "Guppy", "Angelfish"},
+            {"Rabbit", "Hamster", "Guinea Pig", "Turtle"}
+    };
+
+    private static final String[] ADJECTIVES = {
+            "Playful", "Gentle", "Curious", "Fluffy", "Calm", "Energetic", "Friendly", "Shy", "Loyal", "Tiny"
+    };
+
+    private static final String[] WORDS = {
+            "loves", "walks", "cuddles", "treats", "friendly", "with", "children", "house", "trained",
+            "vaccinated", "healthy", "young", "adult", "quiet", "active", "garden", "apartment", "toys",
+            "brushing", "gentle", "other", "pets", "food", "sleeps", "plays", "fetch", "window", "sun"
+    };
+
+    private static final String[] STATUSES = {"AVAILABLE", "AVAILABLE", "AVAILABLE", "PENDING", "ADOPTED"};
+
+    private CatalogFixtures() {
+    }
+
+    public static List<Product> products(int count, long seed) {
+        Random random = new Random(seed);
+        Product.PetType[] types = Product.PetType.values();
+        long now = System.currentTimeMillis();
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int typeIndex = random.nextInt(BREEDS.length);
+            String breed = BREEDS[typeIndex][random.nextInt(BREEDS[typeIndex].length)];
+
+            StringBuilder description = new StringBuilder();
+            int words = 20 + random.nextInt(40);
+            for (int w = 0; w < words; w++) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+
+            Product product = new Product();
+            product.setCode(String.format("P%07d", i));
+            product.setName(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + breed);
+            product.setType(types[Math.min(typeIndex, types.length - 1)]);
+            product.setBreed(breed);
+            product.setAge((1 + random.nextInt(15)) + " months");
+            product.setGender(random.nextBoolean() ? "Male" : "Female");
+            product.setDescription(description.toString().trim());
+            product.setPrice(50 + random.nextInt(200000) / 100.0);
+            product.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            product.setCreateDate(new Date(now - random.nextInt(365 * 24 * 3600) * 1000L));
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Insert products straight into the products table, in batches. Bypasses JPA and its
+     * change events, so rebuild the catalog index afterwards.
+     */
+    public static void insert(JdbcTemplate jdbcTemplate, List<Product> products) {
+        jdbcTemplate.batchUpdate("insert into products (code, name, type, breed, age, gender, description, price, "
+                        + "status, create_date, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                products, 1_000, (statement, product) -> {
+                    statement.setString(1, product.getCode());
+                    statement.setString(2, product.getName());
+                    statement.setString(3, product.getType().name());
+                    statement.setString(4, product.getBreed());
+                    statement.setString(5, product.getAge());
+                    statement.setString(6, product.getGender());
+                    statement.setString(7, product.getDescription());
+                    statement.setDouble(8, product.getPrice());
+                    statement.setString(9, product.getStatus());
+                    statement.setTimestamp(10, new Timestamp(product.getCreateDate().getTime()));
+                });
+    }
+}
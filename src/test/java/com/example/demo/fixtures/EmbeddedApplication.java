@@ -0,0 +1,59 @@
+package com.example.demo.fixtures;
+
+import com.example.demo.OnlinePetStoreApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the application for a benchmark or the load test on a random port against the
+ * in-memory H2 database of the test configuration, with logging turned down so it does not
+ * distort the results. Given properties replace the defaults of the same name.
+ */
+public final class EmbeddedApplication {
+
+    private static final String[] DEFAULTS = {
+            "server.port=0",
+            "spring.datasource.url=jdbc:h2:mem:embedded;DB_CLOSE_ON_EXIT=FALSE",
+            "spring.jpa.show-sql=false",
+            "logging.level.root=WARN",
+            "logging.level.com.example.demo=WARN",
+            "logging.level.org.springframework.security=WARN"
+    };
+
+    private EmbeddedApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        return run(new SpringApplicationBuilder(OnlinePetStoreApplication.class), properties);
+    }
+
+    /**
+     * Starts the application with an additional configuration class, e.g. a benchmark's beans.
+     */
+    public static ConfigurableApplicationContext start(Class<?> configuration, String... properties) {
+        return run(new SpringApplicationBuilder(OnlinePetStoreApplication.class, configuration), properties);
+    }
+
+    private static ConfigurableApplicationContext run(SpringApplicationBuilder builder, String... properties) {
+        // Devtools would restart the application by calling the launching main again; it only reads the system property
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, String> merged = new LinkedHashMap<>();
+        for (String property : DEFAULTS) {
+            merged.put(property.substring(0, property.indexOf('=')), property);
+        }
+        for (String property : properties) {
+            merged.put(property.substring(0, property.indexOf('=')), property);
+        }
+        // As arguments: default properties would lose to the test application.properties
+        List<String> arguments = new ArrayList<>();
+        for (String property : merged.values()) {
+            arguments.add("--" + property);
+        }
+        return builder.run(arguments.toArray(String[]::new));
+    }
+}
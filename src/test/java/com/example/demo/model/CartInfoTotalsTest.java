@@ -0,0 +1,91 @@
+package com.example.demo.model;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Randomized checks of the running cart totals against a full recomputation in exact
+ * decimal arithmetic, over sequences of mixed cart operations.
+ */
+class CartInfoTotalsTest {
+
+    private static final double[] PRICES = {0.1, 0.2, 0.3, 19.99, 1.005, 1.15, 2.675, 99.95, 1234.56, 0.01, 5};
+
+    @RepeatedTest(200)
+    void runningTotalsMatchFullRecomputation(RepetitionInfo repetition) {
+        Random random = new Random(repetition.getCurrentRepetition());
+        List<ProductInfo> products = products(random);
+        CartInfo cart = new CartInfo();
+
+        for (int step = 0; step < 300; step++) {
+            ProductInfo product = products.get(random.nextInt(products.size()));
+            switch (random.nextInt(8)) {
+                case 0, 1, 2 -> cart.addProduct(product, random.nextInt(7) - 2);
+                case 3, 4 -> cart.updateProduct(product.getCode(), random.nextInt(10) - 1);
+                case 5 -> cart.removeProduct(product.getCode());
+                case 6 -> cart = random.nextInt(10) == 0 ? new CartInfo() : cart.copy();
+                default -> {
+                    CartInfo rebuilt = new CartInfo();
+                    rebuilt.setCartLines(cart.copy().getCartLines());
+                    cart = rebuilt;
+                }
+            }
+            assertTotals(cart, "seed " + repetition.getCurrentRepetition() + ", step " + step);
+        }
+    }
+
+    @Test
+    void decimalPricesDoNotDrift() {
+        ProductInfo dime = product("D", 0.1);
+        CartInfo cart = new CartInfo();
+        for (int i = 0; i < 3; i++) {
+            cart.addProduct(product("P" + i, 0.1), 1);
+        }
+        assertEquals(0.3, cart.getAmountTotal());
+        assertEquals(30, cart.getTotalCents());
+
+        cart.addProduct(dime, 1_000_000);
+        cart.updateProduct("D", 999_999);
+        cart.removeProduct("P0");
+        assertEquals(9_999_990 + 20, cart.getTotalCents());
+        assertEquals(100_000.1, cart.getTotalAmount());
+    }
+
+    private static void assertTotals(CartInfo cart, String context) {
+        BigDecimal amount = BigDecimal.ZERO;
+        int quantity = 0;
+        for (CartLineInfo line : cart.getCartLines()) {
+            BigDecimal price = BigDecimal.valueOf(line.getProductInfo().getPrice()).setScale(2, RoundingMode.HALF_UP);
+            amount = amount.add(price.multiply(BigDecimal.valueOf(line.getQuantity())));
+            quantity += line.getQuantity();
+        }
+        assertEquals(amount.movePointRight(2).longValueExact(), cart.getTotalCents(), context);
+        assertEquals(amount.doubleValue(), cart.getAmountTotal(), context);
+        assertEquals(quantity, cart.getQuantityTotal(), context);
+        assertEquals(quantity, cart.getTotalQuantity(), context);
+    }
+
+    private static List<ProductInfo> products(Random random) {
+        List<ProductInfo> products = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            products.add(product("P" + i, PRICES[random.nextInt(PRICES.length)]));
+        }
+        return products;
+    }
+
+    private static ProductInfo product(String code, double price) {
+        ProductInfo product = new ProductInfo();
+        product.setCode(code);
+        product.setPrice(price);
+        return product;
+    }
+}
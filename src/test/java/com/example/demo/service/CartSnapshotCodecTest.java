@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CartInfo;
+import com.example.demo.model.ProductInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartSnapshotCodecTest {
+
+    @Test
+    void emptyCartRoundTrips() {
+        byte[] data = CartSnapshotCodec.encode(new CartInfo());
+        assertArrayEquals(new byte[]{CartSnapshotCodec.VERSION, 0}, data);
+        assertEquals(List.of(), CartSnapshotCodec.decode(data));
+    }
+
+    @Test
+    void linesRoundTripWithQuantitiesAndPriceSnapshots() {
+        CartInfo cart = new CartInfo();
+        cart.addProduct(product("P-1", 19.99), 1);
+        cart.addProduct(product("P-2", 1.005), 300);
+        cart.addProduct(product("Hündchen-ß", 1234567.89), 1);
+        cart.addProduct(product("P-4", 0), 5);
+
+        assertEquals(List.of(
+                new CartSnapshotCodec.Line("P-1", 1, 1999),
+                new CartSnapshotCodec.Line("P-2", 300, 101),
+                new CartSnapshotCodec.Line("Hündchen-ß", 1, 123456789),
+                new CartSnapshotCodec.Line("P-4", 5, 0)), CartSnapshotCodec.decode(CartSnapshotCodec.encode(cart)));
+    }
+
+    @Test
+    void largeQuantitiesRoundTrip() {
+        CartInfo cart = new CartInfo();
+        cart.addProduct(product("P-1", 99.95), Integer.MAX_VALUE);
+
+        List<CartSnapshotCodec.Line> lines = CartSnapshotCodec.decode(CartSnapshotCodec.encode(cart));
+        assertEquals(Integer.MAX_VALUE, lines.get(0).quantity());
+        assertEquals(9995, lines.get(0).priceCents());
+    }
+
+    @Test
+    void isSmallerThanTheLegacyJson() throws Exception {
+        CartInfo cart = new CartInfo();
+        for (int i = 0; i < 5; i++) {
+            cart.addProduct(product("P-" + i, 10 + i), 1 + i);
+        }
+        int json = new ObjectMapper().writeValueAsString(cart).getBytes(StandardCharsets.UTF_8).length;
+        int binary = CartSnapshotCodec.encode(cart).length;
+        assertTrue(binary * 10 < json, "binary " + binary + " bytes, json " + json + " bytes");
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        byte[] data = CartSnapshotCodec.encode(new CartInfo());
+        data[0] = CartSnapshotCodec.VERSION + 1;
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> CartSnapshotCodec.decode(data));
+        assertTrue(e.getMessage().contains("version"), e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        CartInfo cart = new CartInfo();
+        cart.addProduct(product("P-1", 19.99), 2);
+        byte[] data = CartSnapshotCodec.encode(cart);
+        for (int length = 0; length < data.length; length++) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(IllegalArgumentException.class, () -> CartSnapshotCodec.decode(truncated));
+        }
+    }
+
+    private static ProductInfo product(String code, double price) {
+        ProductInfo product = new ProductInfo();
+        product.setCode(code);
+        product.setName("Pet " + code);
+        product.setPrice(price);
+        return product;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CartInfo;
+import com.example.demo.model.ProductInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CartSnapshotMigrationTest {
+
+    @Autowired
+    private CartSnapshotMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void convertsLegacyJsonRowsAndKeepsUnreadableOnes() throws Exception {
+        CartInfo cart = new CartInfo();
+        ProductInfo product = new ProductInfo();
+        product.setCode("P-1");
+        product.setName("Rex");
+        product.setPrice(19.99);
+        cart.addProduct(product, 3);
+        insertLegacy("migration-legacy", objectMapper.writeValueAsString(cart));
+        insertLegacy("migration-broken", "{not json");
+
+        assertTrue(migration.migrate() >= 1);
+
+        Map<String, Object> converted = row("migration-legacy");
+        assertNull(converted.get("cart_data"));
+        assertNotNull(converted.get("cart_snapshot"));
+        assertEquals(List.of(new CartSnapshotCodec.Line("P-1", 3, 1999)),
+                CartSnapshotCodec.decode((byte[]) converted.get("cart_snapshot")));
+
+        Map<String, Object> broken = row("migration-broken");
+        assertEquals("{not json", broken.get("cart_data"));
+        assertNull(broken.get("cart_snapshot"));
+
+        // Nothing left to convert the second time
+        assertEquals(0, migration.migrate());
+    }
+
+    private void insertLegacy(String userId, String json) {
+        jdbcTemplate.update("insert into persistent_carts (user_id, cart_data, last_updated) values (?, ?, ?)",
+                userId, json, new Timestamp(System.currentTimeMillis()));
+    }
+
+    private Map<String, Object> row(String userId) {
+        return jdbcTemplate.queryForMap("select cart_data, cart_snapshot from persistent_carts where user_id = ?",
+                userId);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CartInfo;
+import com.example.demo.model.CartLineInfo;
+import com.example.demo.model.ProductInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartStoreTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS = 2000;
+    private static final int PRODUCTS = 5;
+
+    @Test
+    void concurrentUpdatesOfOneCartAreNotLost() throws Exception {
+        CartStore store = new CartStore();
+        List<ProductInfo> products = products();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                ProductInfo product = products.get((thread + i) % PRODUCTS);
+                store.update("user:alice", null, cart -> {
+                    cart.addProduct(product, 1);
+                    return null;
+                });
+                if (i % 10 == 0) {
+                    // Readers only ever see complete copies
+                    CartInfo snapshot = store.snapshot("user:alice", null);
+                    for (CartLineInfo line : snapshot.getCartLines()) {
+                        assertNotNull(line.getProductInfo());
+                    }
+                }
+            }
+        });
+
+        CartInfo cart = store.snapshot("user:alice", null);
+        assertEquals(PRODUCTS, cart.getCartLines().size());
+        assertEquals(THREADS * OPERATIONS, cart.getQuantityTotal());
+        for (CartLineInfo line : cart.getCartLines()) {
+            assertEquals(THREADS * OPERATIONS / PRODUCTS, line.getQuantity());
+        }
+    }
+
+    @Test
+    void cartsOfDifferentUsersStayIsolated() throws Exception {
+        CartStore store = new CartStore();
+        List<ProductInfo> products = products();
+
+        runConcurrently(thread -> {
+            String key = "user:" + thread;
+            for (int i = 0; i < OPERATIONS; i++) {
+                ProductInfo product = products.get(i % PRODUCTS);
+                store.update(key, CartInfo::new, cart -> {
+                    cart.addProduct(product, 2);
+                    cart.updateProduct(product.getCode(), cart.findLineByCode(product.getCode()).getQuantity() - 1);
+                    return null;
+                });
+            }
+        });
+
+        assertEquals(THREADS, store.size());
+        for (int thread = 0; thread < THREADS; thread++) {
+            assertEquals(OPERATIONS, store.snapshot("user:" + thread, null).getQuantityTotal());
+        }
+    }
+
+    @Test
+    void snapshotIsDetachedFromTheStoredCart() {
+        CartStore store = new CartStore();
+        ProductInfo product = products().get(0);
+        store.update("session:1", null, cart -> {
+            cart.addProduct(product, 1);
+            return null;
+        });
+
+        CartInfo snapshot = store.snapshot("session:1", null);
+        snapshot.addProduct(product, 5);
+        snapshot.removeProduct(product);
+
+        assertEquals(1, store.snapshot("session:1", null).getQuantityTotal());
+        assertNotNull(store.remove("session:1"));
+        assertTrue(store.snapshot("session:1", null).isEmpty());
+    }
+
+    private static List<ProductInfo> products() {
+        List<ProductInfo> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductInfo product = new ProductInfo();
+            product.setCode("P" + i);
+            product.setName("Pet " + i);
+            product.setPrice(10 * (i + 1));
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
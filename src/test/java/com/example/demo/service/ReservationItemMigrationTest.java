@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class ReservationItemMigrationTest {
+
+    @Autowired
+    private ReservationItemMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createsItemsOnceAndSkipsReservationsWithoutLines() {
+        long legacy = insertLegacy("[{\"productInfo\":{\"code\":\"MIGRATION-GONE\",\"name\":\"Rex\",\"price\":19.99},"
+                + "\"quantity\":2}]");
+        long empty = insertLegacy("[]");
+
+        assertEquals(1, migration.migrate());
+
+        List<Map<String, Object>> items = jdbcTemplate.queryForList(
+                "select product_code, product_name, unit_price, quantity from reservation_items where reservation_id = ?",
+                legacy);
+        assertEquals(1, items.size());
+        // The pet no longer exists: the item keeps its name and price only
+        assertNull(items.get(0).get("product_code"));
+        assertEquals("Rex", items.get(0).get("product_name"));
+        assertEquals(19.99, ((Number) items.get(0).get("unit_price")).doubleValue());
+        assertEquals(2, ((Number) items.get(0).get("quantity")).intValue());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from reservation_items where reservation_id = ?", Integer.class, empty));
+
+        // Converged: nothing is selected again
+        assertEquals(0, migration.migrate());
+    }
+
+    private long insertLegacy(String reservedItemsDetails) {
+        jdbcTemplate.update("insert into reservations (customer_name, customer_email, reservation_date, status,"
+                        + " reserved_items_details) values (?, ?, ?, ?, ?)", "Migration", "migration@example.com",
+                new Timestamp(System.currentTimeMillis()), "PENDING", reservedItemsDetails);
+        return jdbcTemplate.queryForObject("select max(id) from reservations", Long.class);
+    }
+}